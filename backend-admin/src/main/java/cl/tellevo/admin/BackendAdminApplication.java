@@ -1,6 +1,8 @@
 package cl.tellevo.admin;
 
 import cl.tellevo.admin.service.FileStorageService;
+import cl.tellevo.admin.service.VentasSnapshotService;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -20,4 +22,13 @@ public class BackendAdminApplication {
         };
     }
 
+    @Bean
+    SmartInitializingSingleton restoreVentasAggregates(VentasSnapshotService ventasSnapshotService) {
+        // Runs once every bean exists, before the web server accepts connections and the ventas stream opens
+        return () -> {
+            ventasSnapshotService.restore();
+            ventasSnapshotService.start();
+        };
+    }
+
 }
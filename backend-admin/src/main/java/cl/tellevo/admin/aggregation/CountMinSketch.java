@@ -0,0 +1,173 @@
+package cl.tellevo.admin.aggregation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Count-min sketch over string keys with conservative update.
+ *
+ * A sketch of width w and depth d never underestimates a key's count, and
+ * overestimates it by more than (e / w) * N with probability at most e^-d,
+ * where N is the total of all increments. Conservative update (only raising
+ * the rows that hold the current minimum) keeps estimates tighter in
+ * practice without weakening that bound. Memory is 8 * w * d bytes and does
+ * not grow with the number of distinct keys.
+ *
+ * The bound assumes distinct keys hash independently, so keys are hashed
+ * with a 64-bit murmur3-style function over all their chars rather than
+ * String.hashCode(), whose 32-bit collisions ("Aa" and "BB") would share
+ * every row.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public final class CountMinSketch {
+
+    // Written before the dimensions; sketches counted with a different hash are not restored
+    private static final int FORMAT = -2;
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private final int width;
+    private final int depth;
+    private final long[] table;
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.table = new long[width * depth];
+    }
+
+    /**
+     * Count one occurrence of key
+     * @return the key's estimated count after the increment
+     */
+    public long add(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[index(row, h1, h2)]);
+        }
+        long updated = min + 1;
+        for (int row = 0; row < depth; row++) {
+            int index = index(row, h1, h2);
+            if (table[index] < updated) {
+                table[index] = updated;
+            }
+        }
+        total++;
+        return updated;
+    }
+
+    /**
+     * @return the key's estimated count, never below the true count
+     */
+    public long estimate(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[index(row, h1, h2)]);
+        }
+        return min;
+    }
+
+    /**
+     * @return number of increments seen (N in the error bound)
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return epsilon, the overestimate bound as a fraction of the total
+     */
+    public double getEpsilon() {
+        return Math.E / width;
+    }
+
+    /**
+     * @return delta, the probability that an estimate exceeds the bound
+     */
+    public double getDelta() {
+        return Math.exp(-depth);
+    }
+
+    private int index(int row, int h1, int h2) {
+        // Kirsch-Mitzenmacher: row hashes derived from two base hashes
+        int combined = h1 + row * h2;
+        return row * width + Math.floorMod(combined, width);
+    }
+
+    private static long hash(String key) {
+        // murmur3_x64 block and finalizer steps, four UTF-16 chars per 64-bit block, no allocation
+        int length = key.length();
+        long h = length;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long block = key.charAt(i) | (long) key.charAt(i + 1) << 16
+                | (long) key.charAt(i + 2) << 32 | (long) key.charAt(i + 3) << 48;
+            h ^= mixBlock(block);
+            h = Long.rotateLeft(h, 27) * 5 + 0x52DCE729;
+        }
+        if (i < length) {
+            long block = 0;
+            for (int shift = 0; i < length; i++, shift += 16) {
+                block |= (long) key.charAt(i) << shift;
+            }
+            h ^= mixBlock(block);
+        }
+        h ^= length;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long mixBlock(long block) {
+        block *= C1;
+        block = Long.rotateLeft(block, 31);
+        return block * C2;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT);
+        out.writeInt(width);
+        out.writeInt(depth);
+        out.writeLong(total);
+        for (long cell : table) {
+            out.writeLong(cell);
+        }
+    }
+
+    /**
+     * Replace the sketch's counters with ones written by writeTo
+     * @throws IOException if the data was written with different dimensions or an older hash
+     */
+    public void readFrom(DataInput in) throws IOException {
+        if (in.readInt() != FORMAT) {
+            throw new IOException("Count-min sketch was written with an older key hash");
+        }
+        int storedWidth = in.readInt();
+        int storedDepth = in.readInt();
+        if (storedWidth != width || storedDepth != depth) {
+            throw new IOException("Count-min sketch changed from " + storedWidth + "x" + storedDepth
+                + " to " + width + "x" + depth);
+        }
+        total = in.readLong();
+        for (int i = 0; i < table.length; i++) {
+            table[i] = in.readLong();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package cl.tellevo.admin.aggregation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * One HyperLogLog per day for the last {@code retentionDays} days.
+ *
+ * Days are kept in a ring indexed by epoch day; a slot is cleared and reused
+ * when a newer day reaches it, so memory stays at retentionDays sketches.
+ * Sketches are created on the first element of a day, so keys that only sell
+ * on a few days hold only those days.
+ */
+public final class DailyHyperLogLogs {
+
+    private final int precision;
+    private final long[] days;
+    private final HyperLogLog[] sketches;
+
+    public DailyHyperLogLogs(int precision, int retentionDays) {
+        if (retentionDays <= 0) {
+            throw new IllegalArgumentException("retentionDays must be positive");
+        }
+        this.precision = precision;
+        this.days = new long[retentionDays];
+        this.sketches = new HyperLogLog[retentionDays];
+    }
+
+    /**
+     * @param epochDay day of the element
+     * @param hash well-mixed 64-bit hash of the element
+     */
+    public synchronized void add(long epochDay, long hash) {
+        int slot = (int) Math.floorMod(epochDay, (long) sketches.length);
+        HyperLogLog sketch = sketches[slot];
+        if (sketch == null) {
+            sketch = new HyperLogLog(precision);
+            sketches[slot] = sketch;
+            days[slot] = epochDay;
+        } else if (days[slot] != epochDay) {
+            if (days[slot] > epochDay) {
+                // Older than the retained days
+                return;
+            }
+            sketch.clear();
+            days[slot] = epochDay;
+        }
+        sketch.add(hash);
+    }
+
+    /**
+     * Merge the retained days in [fromEpochDay, toEpochDay] into target
+     */
+    public synchronized void mergeInto(HyperLogLog target, long fromEpochDay, long toEpochDay) {
+        for (int slot = 0; slot < sketches.length; slot++) {
+            if (sketches[slot] != null && days[slot] >= fromEpochDay && days[slot] <= toEpochDay) {
+                target.merge(sketches[slot]);
+            }
+        }
+    }
+
+    public int getRetentionDays() {
+        return sketches.length;
+    }
+
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(sketches.length);
+        for (int slot = 0; slot < sketches.length; slot++) {
+            out.writeBoolean(sketches[slot] != null);
+            if (sketches[slot] != null) {
+                out.writeLong(days[slot]);
+                sketches[slot].writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Replace the daily sketches with ones written by writeTo
+     * @throws IOException if the data was written with a different retention or precision
+     */
+    public synchronized void readFrom(DataInput in) throws IOException {
+        int storedRetention = in.readInt();
+        if (storedRetention != sketches.length) {
+            throw new IOException("Retention changed from " + storedRetention + " to " + sketches.length + " days");
+        }
+        for (int slot = 0; slot < sketches.length; slot++) {
+            if (!in.readBoolean()) {
+                sketches[slot] = null;
+                continue;
+            }
+            days[slot] = in.readLong();
+            HyperLogLog sketch = new HyperLogLog(precision);
+            sketch.readFrom(in);
+            sketches[slot] = sketch;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package cl.tellevo.admin.aggregation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct-count sketch.
+ *
+ * 2^precision one-byte registers give a standard error of about
+ * 1.04 / sqrt(2^precision): precision 13 is 8 KB per sketch with ~1.15%
+ * error. Sketches of the same precision merge by taking the register-wise
+ * maximum, so counts over several days are the merge of the daily sketches.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public final class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("precision must be between 4 and 18");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * @param hash a well-mixed 64-bit hash of the element
+     */
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Position of the first 1 bit in the remaining bits; the sentinel bit caps it
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Fold another sketch into this one
+     * @throws IllegalArgumentException if the precisions differ
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog of precision "
+                + other.precision + " into " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Uses Ertl's improved raw estimator ("New cardinality estimation
+     * algorithms for HyperLogLog sketches", 2017), which stays unbiased across
+     * the small and mid ranges without empirical bias tables.
+     * @return estimated number of distinct elements added
+     */
+    public long estimate() {
+        int m = registers.length;
+        int q = 64 - precision;
+        int[] histogram = new int[q + 2];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+
+        double z = m * tau(1.0 - (double) histogram[q + 1] / m);
+        for (int k = q; k >= 1; k--) {
+            z = 0.5 * (z + histogram[k]);
+        }
+        z += m * sigma((double) histogram[0] / m);
+        // m * m overflows an int from precision 16 on
+        return Math.round((double) m * m / (2 * Math.log(2)) / z);
+    }
+
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * @return relative standard error of estimate()
+     */
+    public double getStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(precision);
+        out.write(registers);
+    }
+
+    /**
+     * Replace the registers with ones written by writeTo
+     * @throws IOException if the data was written with a different precision
+     */
+    public void readFrom(DataInput in) throws IOException {
+        int storedPrecision = in.readByte();
+        if (storedPrecision != precision) {
+            throw new IOException("HyperLogLog precision changed from " + storedPrecision + " to " + precision);
+        }
+        in.readFully(registers);
+    }
+
+    private static double sigma(double x) {
+        if (x == 1.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1.0;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0.0 || x == 1.0) {
+            return 0.0;
+        }
+        double y = 1.0;
+        double z = 1.0 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= Math.pow(1.0 - x, 2) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+}
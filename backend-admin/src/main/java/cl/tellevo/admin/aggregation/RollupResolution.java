@@ -0,0 +1,20 @@
+package cl.tellevo.admin.aggregation;
+
+/**
+ * Bucket widths kept by the ventas rollups.
+ */
+public enum RollupResolution {
+    SECOND(1000L),
+    MINUTE(60_000L),
+    HOUR(3_600_000L);
+
+    private final long bucketMillis;
+
+    RollupResolution(long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+}
@@ -0,0 +1,122 @@
+package cl.tellevo.admin.aggregation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Venta counts at one resolution for a fixed number of series, stored in
+ * preallocated primitive arrays.
+ *
+ * The ring holds the last {@code length} buckets. Each position is tagged
+ * with the bucket epoch it holds, shared by every series, and the counts of
+ * all series for a position sit next to each other so recycling a position
+ * is a single fill. Nothing is allocated after construction; memory is
+ * {@code 8 * length * (series + 1)} bytes.
+ *
+ * Writes and reads synchronize on the ring. Writes come from the single
+ * upstream delivery thread, so the lock is effectively uncontended.
+ */
+public final class RollupRing {
+
+    private final RollupResolution resolution;
+    private final int length;
+    private final int series;
+    private final long[] epochs;
+    private final long[] counts;
+
+    public RollupRing(RollupResolution resolution, int length, int series) {
+        if (length <= 0 || series <= 0) {
+            throw new IllegalArgumentException("length and series must be positive");
+        }
+        this.resolution = resolution;
+        this.length = length;
+        this.series = series;
+        this.epochs = new long[length];
+        this.counts = new long[length * series];
+        Arrays.fill(epochs, Long.MIN_VALUE);
+    }
+
+    /**
+     * Count one event
+     * @param timeMillis event time in epoch milliseconds
+     * @param seriesIndex series to count it in
+     */
+    public synchronized void increment(long timeMillis, int seriesIndex) {
+        long epoch = Math.floorDiv(timeMillis, resolution.getBucketMillis());
+        int position = (int) Math.floorMod(epoch, (long) length);
+        long current = epochs[position];
+        if (current != epoch) {
+            if (current > epoch) {
+                // Older than the retained range
+                return;
+            }
+            Arrays.fill(counts, position * series, (position + 1) * series, 0L);
+            epochs[position] = epoch;
+        }
+        counts[position * series + seriesIndex]++;
+    }
+
+    /**
+     * Copy the counts of one series for the buckets starting at fromEpoch
+     * @param seriesIndex series to read
+     * @param fromEpoch first bucket epoch (time / bucket width)
+     * @param target receives one count per bucket; buckets outside the retained range read as 0
+     */
+    public synchronized void read(int seriesIndex, long fromEpoch, long[] target) {
+        for (int i = 0; i < target.length; i++) {
+            long epoch = fromEpoch + i;
+            int position = (int) Math.floorMod(epoch, (long) length);
+            target[i] = epochs[position] == epoch ? counts[position * series + seriesIndex] : 0L;
+        }
+    }
+
+    public RollupResolution getResolution() {
+        return resolution;
+    }
+
+    /**
+     * @return number of buckets retained
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return bytes held by the ring's arrays
+     */
+    public long getMemoryBytes() {
+        return 8L * (epochs.length + counts.length);
+    }
+
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(length);
+        out.writeInt(series);
+        for (long epoch : epochs) {
+            out.writeLong(epoch);
+        }
+        for (long count : counts) {
+            out.writeLong(count);
+        }
+    }
+
+    /**
+     * Replace the ring's contents with ones written by writeTo
+     * @throws IOException if the data was written with a different length or series count
+     */
+    public synchronized void readFrom(DataInput in) throws IOException {
+        int storedLength = in.readInt();
+        int storedSeries = in.readInt();
+        if (storedLength != length || storedSeries != series) {
+            throw new IOException(resolution + " rollup layout changed from " + storedLength + "x" + storedSeries
+                + " to " + length + "x" + series);
+        }
+        for (int i = 0; i < epochs.length; i++) {
+            epochs[i] = in.readLong();
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = in.readLong();
+        }
+    }
+}
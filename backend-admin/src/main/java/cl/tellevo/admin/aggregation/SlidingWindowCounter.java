@@ -0,0 +1,117 @@
+package cl.tellevo.admin.aggregation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event count over a sliding time window made of fixed-width buckets.
+ *
+ * Each bucket is a LongAdder tagged with the epoch (time / bucket width) it
+ * currently counts, so writers never contend on a shared counter and reads
+ * only sum buckets whose epoch still falls inside the window. A bucket is
+ * recycled lazily by the first write of a newer epoch; the window therefore
+ * covers the current partial bucket plus the previous buckets - 1 full ones.
+ */
+public final class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final AtomicLongArray epochs;
+    private final LongAdder[] counts;
+
+    public SlidingWindowCounter(long bucketMillis, int buckets) {
+        if (bucketMillis <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("bucketMillis and buckets must be positive");
+        }
+        this.bucketMillis = bucketMillis;
+        this.buckets = buckets;
+        this.epochs = new AtomicLongArray(buckets);
+        this.counts = new LongAdder[buckets];
+        for (int i = 0; i < buckets; i++) {
+            epochs.set(i, Long.MIN_VALUE);
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Count one event at the given time
+     * @param timeMillis event time in epoch milliseconds
+     */
+    public void increment(long timeMillis) {
+        long epoch = Math.floorDiv(timeMillis, bucketMillis);
+        int slot = (int) Math.floorMod(epoch, (long) buckets);
+        long current = epochs.get(slot);
+        if (current != epoch) {
+            if (current > epoch) {
+                // Older than anything the slot can still represent
+                return;
+            }
+            synchronized (counts[slot]) {
+                if (epochs.get(slot) < epoch) {
+                    // Reset before publishing the new epoch so readers never see stale counts under it
+                    counts[slot].reset();
+                    epochs.set(slot, epoch);
+                }
+            }
+        }
+        counts[slot].increment();
+    }
+
+    /**
+     * @param nowMillis current time in epoch milliseconds
+     * @return events counted in the window ending at nowMillis
+     */
+    public long sum(long nowMillis) {
+        long epoch = Math.floorDiv(nowMillis, bucketMillis);
+        long oldest = epoch - buckets + 1;
+        long total = 0;
+        for (int i = 0; i < buckets; i++) {
+            long bucketEpoch = epochs.get(i);
+            if (bucketEpoch >= oldest && bucketEpoch <= epoch) {
+                total += counts[i].sum();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return length of the window in milliseconds
+     */
+    public long getWindowMillis() {
+        return bucketMillis * buckets;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(bucketMillis);
+        out.writeInt(buckets);
+        for (int i = 0; i < buckets; i++) {
+            out.writeLong(epochs.get(i));
+            out.writeLong(counts[i].sum());
+        }
+    }
+
+    /**
+     * Replace the buckets with ones written by writeTo
+     * @throws IOException if the data was written with a different bucket layout
+     */
+    public void readFrom(DataInput in) throws IOException {
+        long storedBucketMillis = in.readLong();
+        int storedBuckets = in.readInt();
+        if (storedBucketMillis != bucketMillis || storedBuckets != buckets) {
+            throw new IOException("Window layout changed from " + storedBuckets + "x" + storedBucketMillis
+                + "ms to " + buckets + "x" + bucketMillis + "ms");
+        }
+        for (int i = 0; i < buckets; i++) {
+            long epoch = in.readLong();
+            long count = in.readLong();
+            synchronized (counts[i]) {
+                counts[i].reset();
+                counts[i].add(count);
+                epochs.set(i, epoch);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package cl.tellevo.admin.aggregation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heavy-hitter tracker: a CountMinSketch for the counts plus a fixed-size
+ * candidate table of the k keys with the largest estimates.
+ *
+ * Each update costs one sketch update and one scan of the k candidates, both
+ * constant for a fixed configuration, and memory never grows with the number
+ * of distinct keys. Reported counts carry the sketch's error bound: at most
+ * epsilon * total above the true count, with probability 1 - delta.
+ */
+public final class TopKTracker {
+
+    private final CountMinSketch sketch;
+    private final String[] keys;
+    private final long[] counts;
+    private int size;
+
+    public TopKTracker(int k, int width, int depth) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        this.sketch = new CountMinSketch(width, depth);
+        this.keys = new String[k];
+        this.counts = new long[k];
+    }
+
+    /**
+     * Count one occurrence of key
+     */
+    public synchronized void add(String key) {
+        long estimate = sketch.add(key);
+
+        int min = 0;
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                counts[i] = estimate;
+                return;
+            }
+            if (counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+
+        if (size < keys.length) {
+            keys[size] = key;
+            counts[size] = estimate;
+            size++;
+        } else if (estimate > counts[min]) {
+            keys[min] = key;
+            counts[min] = estimate;
+        }
+    }
+
+    /**
+     * @param limit maximum number of entries, at most k
+     * @return current candidates, highest estimate first
+     */
+    public synchronized List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(keys[i], counts[i]));
+        }
+        entries.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    public synchronized long getTotal() {
+        return sketch.getTotal();
+    }
+
+    public double getEpsilon() {
+        return sketch.getEpsilon();
+    }
+
+    public double getDelta() {
+        return sketch.getDelta();
+    }
+
+    public int getK() {
+        return keys.length;
+    }
+
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        sketch.writeTo(out);
+        out.writeInt(keys.length);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeUTF(keys[i]);
+            out.writeLong(counts[i]);
+        }
+    }
+
+    /**
+     * Replace the sketch and candidates with ones written by writeTo
+     * @throws IOException if the data was written with a different k or sketch size
+     */
+    public synchronized void readFrom(DataInput in) throws IOException {
+        sketch.readFrom(in);
+        int storedK = in.readInt();
+        if (storedK != keys.length) {
+            throw new IOException("Top-K size changed from " + storedK + " to " + keys.length);
+        }
+        size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            keys[i] = in.readUTF();
+            counts[i] = in.readLong();
+        }
+    }
+
+    public static final class Entry {
+        private final String key;
+        private final long count;
+
+        Entry(String key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
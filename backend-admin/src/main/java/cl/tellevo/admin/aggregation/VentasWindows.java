@@ -0,0 +1,61 @@
+package cl.tellevo.admin.aggregation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Last-minute, last-hour and last-day venta counts plus an all-time total.
+ * One instance covers all ventas and one more is kept per empresa.
+ */
+public final class VentasWindows {
+
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long HOUR = 60 * MINUTE;
+
+    private final SlidingWindowCounter lastMinute = new SlidingWindowCounter(SECOND, 60);
+    private final SlidingWindowCounter lastHour = new SlidingWindowCounter(MINUTE, 60);
+    private final SlidingWindowCounter lastDay = new SlidingWindowCounter(HOUR, 24);
+    private final LongAdder total = new LongAdder();
+
+    public void record(long timeMillis) {
+        lastMinute.increment(timeMillis);
+        lastHour.increment(timeMillis);
+        lastDay.increment(timeMillis);
+        total.increment();
+    }
+
+    public long lastMinute(long nowMillis) {
+        return lastMinute.sum(nowMillis);
+    }
+
+    public long lastHour(long nowMillis) {
+        return lastHour.sum(nowMillis);
+    }
+
+    public long lastDay(long nowMillis) {
+        return lastDay.sum(nowMillis);
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        lastMinute.writeTo(out);
+        lastHour.writeTo(out);
+        lastDay.writeTo(out);
+        out.writeLong(total.sum());
+    }
+
+    public void readFrom(DataInput in) throws IOException {
+        lastMinute.readFrom(in);
+        lastHour.readFrom(in);
+        lastDay.readFrom(in);
+        long storedTotal = in.readLong();
+        total.reset();
+        total.add(storedTotal);
+    }
+}
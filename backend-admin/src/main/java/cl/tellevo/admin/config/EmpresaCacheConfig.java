@@ -0,0 +1,47 @@
+package cl.tellevo.admin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "empresas.cache")
+public class EmpresaCacheConfig {
+    private boolean enabled = true;
+    private int maxEntries = 1000;
+    private long ttlMs = 600000;
+
+    public EmpresaCacheConfig() {}
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    @Override
+    public String toString() {
+        return "EmpresaCacheConfig{" +
+                "enabled=" + enabled +
+                ", maxEntries=" + maxEntries +
+                ", ttlMs=" + ttlMs +
+                '}';
+    }
+}
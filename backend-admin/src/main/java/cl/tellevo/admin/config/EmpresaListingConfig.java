@@ -0,0 +1,57 @@
+package cl.tellevo.admin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "empresas.listing")
+public class EmpresaListingConfig {
+    private boolean unpaginatedEnabled = true;
+    private int defaultLimit = 50;
+    private int maxLimit = 500;
+    private long exportTimeoutMs = 3600000;
+
+    public EmpresaListingConfig() {}
+
+    public boolean isUnpaginatedEnabled() {
+        return unpaginatedEnabled;
+    }
+
+    public void setUnpaginatedEnabled(boolean unpaginatedEnabled) {
+        this.unpaginatedEnabled = unpaginatedEnabled;
+    }
+
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public void setDefaultLimit(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public long getExportTimeoutMs() {
+        return exportTimeoutMs;
+    }
+
+    public void setExportTimeoutMs(long exportTimeoutMs) {
+        this.exportTimeoutMs = exportTimeoutMs;
+    }
+
+    @Override
+    public String toString() {
+        return "EmpresaListingConfig{" +
+                "unpaginatedEnabled=" + unpaginatedEnabled +
+                ", defaultLimit=" + defaultLimit +
+                ", maxLimit=" + maxLimit +
+                ", exportTimeoutMs=" + exportTimeoutMs +
+                '}';
+    }
+}
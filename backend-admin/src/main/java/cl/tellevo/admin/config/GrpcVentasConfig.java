@@ -8,6 +8,11 @@ import org.springframework.context.annotation.Configuration;
 public class GrpcVentasConfig {
     private String host = "localhost";
     private int port = 9090;
+    private long reconnectInitialBackoffMs = 500;
+    private long reconnectMaxBackoffMs = 30000;
+    private double reconnectMultiplier = 2.0;
+    private double reconnectJitter = 0.5;
+    private long reconnectStableAfterMs = 5000;
 
     public GrpcVentasConfig() {}
 
@@ -27,11 +32,56 @@ public class GrpcVentasConfig {
         this.port = port;
     }
 
+    public long getReconnectInitialBackoffMs() {
+        return reconnectInitialBackoffMs;
+    }
+
+    public void setReconnectInitialBackoffMs(long reconnectInitialBackoffMs) {
+        this.reconnectInitialBackoffMs = reconnectInitialBackoffMs;
+    }
+
+    public long getReconnectMaxBackoffMs() {
+        return reconnectMaxBackoffMs;
+    }
+
+    public void setReconnectMaxBackoffMs(long reconnectMaxBackoffMs) {
+        this.reconnectMaxBackoffMs = reconnectMaxBackoffMs;
+    }
+
+    public double getReconnectMultiplier() {
+        return reconnectMultiplier;
+    }
+
+    public void setReconnectMultiplier(double reconnectMultiplier) {
+        this.reconnectMultiplier = reconnectMultiplier;
+    }
+
+    public double getReconnectJitter() {
+        return reconnectJitter;
+    }
+
+    public void setReconnectJitter(double reconnectJitter) {
+        this.reconnectJitter = reconnectJitter;
+    }
+
+    public long getReconnectStableAfterMs() {
+        return reconnectStableAfterMs;
+    }
+
+    public void setReconnectStableAfterMs(long reconnectStableAfterMs) {
+        this.reconnectStableAfterMs = reconnectStableAfterMs;
+    }
+
     @Override
     public String toString() {
         return "GrpcVentasConfig{" +
                 "host='" + host + '\'' +
                 ", port=" + port +
+                ", reconnectInitialBackoffMs=" + reconnectInitialBackoffMs +
+                ", reconnectMaxBackoffMs=" + reconnectMaxBackoffMs +
+                ", reconnectMultiplier=" + reconnectMultiplier +
+                ", reconnectJitter=" + reconnectJitter +
+                ", reconnectStableAfterMs=" + reconnectStableAfterMs +
                 '}';
     }
 }
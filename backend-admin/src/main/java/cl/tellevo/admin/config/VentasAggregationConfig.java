@@ -0,0 +1,207 @@
+package cl.tellevo.admin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "ventas.aggregation")
+public class VentasAggregationConfig {
+    private int maxEmpresas = 500;
+    private int rollupEmpresas = 64;
+    private int rollupSecondBuckets = 3600;
+    private int rollupMinuteBuckets = 4320;
+    private int rollupHourBuckets = 720;
+    private int maxSeriesPoints = 10000;
+    private int topEmpresas = 10;
+    private int topSketchWidth = 2048;
+    private int topSketchDepth = 5;
+    private long topPushIntervalMs = 5000;
+    private int hllPrecision = 13;
+    private int hllRetentionDays = 14;
+    private int hllMaxEmpresas = 200;
+    private String zone = "America/Santiago";
+    private long reorderAllowedLatenessMs = 5000;
+    private int reorderMaxBuffered = 50000;
+    private boolean snapshotEnabled = true;
+    private String snapshotPath = "data/ventas-aggregates.snapshot";
+    private long snapshotIntervalMs = 30000;
+
+    public VentasAggregationConfig() {}
+
+    public int getMaxEmpresas() {
+        return maxEmpresas;
+    }
+
+    public void setMaxEmpresas(int maxEmpresas) {
+        this.maxEmpresas = maxEmpresas;
+    }
+
+    public int getRollupEmpresas() {
+        return rollupEmpresas;
+    }
+
+    public void setRollupEmpresas(int rollupEmpresas) {
+        this.rollupEmpresas = rollupEmpresas;
+    }
+
+    public int getRollupSecondBuckets() {
+        return rollupSecondBuckets;
+    }
+
+    public void setRollupSecondBuckets(int rollupSecondBuckets) {
+        this.rollupSecondBuckets = rollupSecondBuckets;
+    }
+
+    public int getRollupMinuteBuckets() {
+        return rollupMinuteBuckets;
+    }
+
+    public void setRollupMinuteBuckets(int rollupMinuteBuckets) {
+        this.rollupMinuteBuckets = rollupMinuteBuckets;
+    }
+
+    public int getRollupHourBuckets() {
+        return rollupHourBuckets;
+    }
+
+    public void setRollupHourBuckets(int rollupHourBuckets) {
+        this.rollupHourBuckets = rollupHourBuckets;
+    }
+
+    public int getMaxSeriesPoints() {
+        return maxSeriesPoints;
+    }
+
+    public void setMaxSeriesPoints(int maxSeriesPoints) {
+        this.maxSeriesPoints = maxSeriesPoints;
+    }
+
+    public int getTopEmpresas() {
+        return topEmpresas;
+    }
+
+    public void setTopEmpresas(int topEmpresas) {
+        this.topEmpresas = topEmpresas;
+    }
+
+    public int getTopSketchWidth() {
+        return topSketchWidth;
+    }
+
+    public void setTopSketchWidth(int topSketchWidth) {
+        this.topSketchWidth = topSketchWidth;
+    }
+
+    public int getTopSketchDepth() {
+        return topSketchDepth;
+    }
+
+    public void setTopSketchDepth(int topSketchDepth) {
+        this.topSketchDepth = topSketchDepth;
+    }
+
+    public long getTopPushIntervalMs() {
+        return topPushIntervalMs;
+    }
+
+    public void setTopPushIntervalMs(long topPushIntervalMs) {
+        this.topPushIntervalMs = topPushIntervalMs;
+    }
+
+    public int getHllPrecision() {
+        return hllPrecision;
+    }
+
+    public void setHllPrecision(int hllPrecision) {
+        this.hllPrecision = hllPrecision;
+    }
+
+    public int getHllRetentionDays() {
+        return hllRetentionDays;
+    }
+
+    public void setHllRetentionDays(int hllRetentionDays) {
+        this.hllRetentionDays = hllRetentionDays;
+    }
+
+    public int getHllMaxEmpresas() {
+        return hllMaxEmpresas;
+    }
+
+    public void setHllMaxEmpresas(int hllMaxEmpresas) {
+        this.hllMaxEmpresas = hllMaxEmpresas;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public long getReorderAllowedLatenessMs() {
+        return reorderAllowedLatenessMs;
+    }
+
+    public void setReorderAllowedLatenessMs(long reorderAllowedLatenessMs) {
+        this.reorderAllowedLatenessMs = reorderAllowedLatenessMs;
+    }
+
+    public int getReorderMaxBuffered() {
+        return reorderMaxBuffered;
+    }
+
+    public void setReorderMaxBuffered(int reorderMaxBuffered) {
+        this.reorderMaxBuffered = reorderMaxBuffered;
+    }
+
+    public boolean isSnapshotEnabled() {
+        return snapshotEnabled;
+    }
+
+    public void setSnapshotEnabled(boolean snapshotEnabled) {
+        this.snapshotEnabled = snapshotEnabled;
+    }
+
+    public String getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    public void setSnapshotPath(String snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+
+    public long getSnapshotIntervalMs() {
+        return snapshotIntervalMs;
+    }
+
+    public void setSnapshotIntervalMs(long snapshotIntervalMs) {
+        this.snapshotIntervalMs = snapshotIntervalMs;
+    }
+
+    @Override
+    public String toString() {
+        return "VentasAggregationConfig{" +
+                "maxEmpresas=" + maxEmpresas +
+                ", rollupEmpresas=" + rollupEmpresas +
+                ", rollupSecondBuckets=" + rollupSecondBuckets +
+                ", rollupMinuteBuckets=" + rollupMinuteBuckets +
+                ", rollupHourBuckets=" + rollupHourBuckets +
+                ", maxSeriesPoints=" + maxSeriesPoints +
+                ", topEmpresas=" + topEmpresas +
+                ", topSketchWidth=" + topSketchWidth +
+                ", topSketchDepth=" + topSketchDepth +
+                ", topPushIntervalMs=" + topPushIntervalMs +
+                ", hllPrecision=" + hllPrecision +
+                ", hllRetentionDays=" + hllRetentionDays +
+                ", hllMaxEmpresas=" + hllMaxEmpresas +
+                ", zone='" + zone + '\'' +
+                ", reorderAllowedLatenessMs=" + reorderAllowedLatenessMs +
+                ", reorderMaxBuffered=" + reorderMaxBuffered +
+                ", snapshotEnabled=" + snapshotEnabled +
+                ", snapshotPath='" + snapshotPath + '\'' +
+                ", snapshotIntervalMs=" + snapshotIntervalMs +
+                '}';
+    }
+}
@@ -0,0 +1,107 @@
+package cl.tellevo.admin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "ventas.eventlog")
+public class VentasEventLogConfig {
+    private boolean enabled = true;
+    private String directory = "data/ventas-log";
+    private int segmentBytes = 64 * 1024 * 1024;
+    private int indexIntervalBytes = 4096;
+    private long flushIntervalMs = 200;
+    private int flushRecords = 1000;
+    private long retentionBytes = 1024L * 1024 * 1024;
+    private long retentionHours = 168;
+    private long historyTimeoutMs = 3600000;
+
+    public VentasEventLogConfig() {}
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    public void setSegmentBytes(int segmentBytes) {
+        this.segmentBytes = segmentBytes;
+    }
+
+    public int getIndexIntervalBytes() {
+        return indexIntervalBytes;
+    }
+
+    public void setIndexIntervalBytes(int indexIntervalBytes) {
+        this.indexIntervalBytes = indexIntervalBytes;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public int getFlushRecords() {
+        return flushRecords;
+    }
+
+    public void setFlushRecords(int flushRecords) {
+        this.flushRecords = flushRecords;
+    }
+
+    public long getRetentionBytes() {
+        return retentionBytes;
+    }
+
+    public void setRetentionBytes(long retentionBytes) {
+        this.retentionBytes = retentionBytes;
+    }
+
+    public long getRetentionHours() {
+        return retentionHours;
+    }
+
+    public void setRetentionHours(long retentionHours) {
+        this.retentionHours = retentionHours;
+    }
+
+    public long getHistoryTimeoutMs() {
+        return historyTimeoutMs;
+    }
+
+    public void setHistoryTimeoutMs(long historyTimeoutMs) {
+        this.historyTimeoutMs = historyTimeoutMs;
+    }
+
+    @Override
+    public String toString() {
+        return "VentasEventLogConfig{" +
+                "enabled=" + enabled +
+                ", directory='" + directory + '\'' +
+                ", segmentBytes=" + segmentBytes +
+                ", indexIntervalBytes=" + indexIntervalBytes +
+                ", flushIntervalMs=" + flushIntervalMs +
+                ", flushRecords=" + flushRecords +
+                ", retentionBytes=" + retentionBytes +
+                ", retentionHours=" + retentionHours +
+                ", historyTimeoutMs=" + historyTimeoutMs +
+                '}';
+    }
+}
@@ -0,0 +1,97 @@
+package cl.tellevo.admin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "ventas.sink")
+public class VentasSinkConfig {
+    private boolean enabled = false;
+    private String table = "ventas";
+    private boolean createTable = false;
+    private int queueCapacity = 100000;
+    private int batchSize = 5000;
+    private long flushIntervalMs = 1000;
+    private long retryInitialBackoffMs = 500;
+    private long retryMaxBackoffMs = 30000;
+
+    public VentasSinkConfig() {}
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public boolean isCreateTable() {
+        return createTable;
+    }
+
+    public void setCreateTable(boolean createTable) {
+        this.createTable = createTable;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public long getRetryInitialBackoffMs() {
+        return retryInitialBackoffMs;
+    }
+
+    public void setRetryInitialBackoffMs(long retryInitialBackoffMs) {
+        this.retryInitialBackoffMs = retryInitialBackoffMs;
+    }
+
+    public long getRetryMaxBackoffMs() {
+        return retryMaxBackoffMs;
+    }
+
+    public void setRetryMaxBackoffMs(long retryMaxBackoffMs) {
+        this.retryMaxBackoffMs = retryMaxBackoffMs;
+    }
+
+    @Override
+    public String toString() {
+        return "VentasSinkConfig{" +
+                "enabled=" + enabled +
+                ", table='" + table + '\'' +
+                ", createTable=" + createTable +
+                ", queueCapacity=" + queueCapacity +
+                ", batchSize=" + batchSize +
+                ", flushIntervalMs=" + flushIntervalMs +
+                ", retryInitialBackoffMs=" + retryInitialBackoffMs +
+                ", retryMaxBackoffMs=" + retryMaxBackoffMs +
+                '}';
+    }
+}
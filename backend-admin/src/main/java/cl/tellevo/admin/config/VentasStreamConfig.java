@@ -0,0 +1,98 @@
+package cl.tellevo.admin.config;
+
+import cl.tellevo.admin.websocket.SlowConsumerPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "ventas.stream")
+public class VentasStreamConfig {
+    private int outboundQueueCapacity = 256;
+    private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DROP_OLDEST;
+    private int maxBatchSize = 500;
+    private long maxBatchMs = 1000;
+    private int replayCapacity = 1000;
+    private int replayBacklog = 50;
+    private int flowControlWindow = 32;
+    private int dedupHorizonIds = 16777216;
+
+    public VentasStreamConfig() {}
+
+    public int getOutboundQueueCapacity() {
+        return outboundQueueCapacity;
+    }
+
+    public void setOutboundQueueCapacity(int outboundQueueCapacity) {
+        this.outboundQueueCapacity = outboundQueueCapacity;
+    }
+
+    public SlowConsumerPolicy getSlowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+
+    public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public long getMaxBatchMs() {
+        return maxBatchMs;
+    }
+
+    public void setMaxBatchMs(long maxBatchMs) {
+        this.maxBatchMs = maxBatchMs;
+    }
+
+    public int getReplayCapacity() {
+        return replayCapacity;
+    }
+
+    public void setReplayCapacity(int replayCapacity) {
+        this.replayCapacity = replayCapacity;
+    }
+
+    public int getReplayBacklog() {
+        return replayBacklog;
+    }
+
+    public void setReplayBacklog(int replayBacklog) {
+        this.replayBacklog = replayBacklog;
+    }
+
+    public int getFlowControlWindow() {
+        return flowControlWindow;
+    }
+
+    public void setFlowControlWindow(int flowControlWindow) {
+        this.flowControlWindow = flowControlWindow;
+    }
+
+    public int getDedupHorizonIds() {
+        return dedupHorizonIds;
+    }
+
+    public void setDedupHorizonIds(int dedupHorizonIds) {
+        this.dedupHorizonIds = dedupHorizonIds;
+    }
+
+    @Override
+    public String toString() {
+        return "VentasStreamConfig{" +
+                "outboundQueueCapacity=" + outboundQueueCapacity +
+                ", slowConsumerPolicy=" + slowConsumerPolicy +
+                ", maxBatchSize=" + maxBatchSize +
+                ", maxBatchMs=" + maxBatchMs +
+                ", replayCapacity=" + replayCapacity +
+                ", replayBacklog=" + replayBacklog +
+                ", flowControlWindow=" + flowControlWindow +
+                ", dedupHorizonIds=" + dedupHorizonIds +
+                '}';
+    }
+}
@@ -1,27 +1,130 @@
 package cl.tellevo.admin.controller;
 
+import cl.tellevo.admin.aggregation.RollupResolution;
+import cl.tellevo.admin.service.VentasAggregationService;
+import cl.tellevo.admin.service.VentasCompradoresService;
+import cl.tellevo.admin.service.VentasReorderBuffer;
+import cl.tellevo.admin.service.VentasRollupService;
+import cl.tellevo.admin.service.VentasTopEmpresasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/dashboard")
 public class DashboardController {
 
+    @Autowired
+    private VentasAggregationService ventasAggregationService;
+
+    @Autowired
+    private VentasRollupService ventasRollupService;
+
+    @Autowired
+    private VentasTopEmpresasService ventasTopEmpresasService;
+
+    @Autowired
+    private VentasCompradoresService ventasCompradoresService;
+
+    @Autowired
+    private VentasReorderBuffer ventasReorderBuffer;
+
     @GetMapping("/overview")
     public ResponseEntity<Map<String, Object>> getDashboardOverview() {
         Map<String, Object> data = new HashMap<>();
-        // Mock data matching frontend expectations
+        // Trip metrics have no live source yet; kept so the dashboard cards still render
         data.put("usuariosActivos", 1247);
         data.put("viajesCompletados", 3589);
         data.put("kmsCompartidos", 45678.5);
         data.put("co2Ahorrado", 2341.8);
         data.put("pagosRealizados", 89456);
 
+        // Live venta counts, answered from the in-memory aggregates
+        Map<String, Object> ventas = new HashMap<>();
+        ventas.put("totales", ventasAggregationService.getTotales());
+        ventas.put("porEmpresa", ventasAggregationService.getPorEmpresa());
+        ventas.put("desde", ventasAggregationService.getStartedAt());
+        // Arrived too far behind fecha_envio order to be counted above
+        ventas.put("tardias", ventasReorderBuffer.getLate());
+        data.put("ventas", ventas);
+
         return ResponseEntity.ok(data);
     }
+
+    /**
+     * Venta counts per bucket, read from the in-memory rollups
+     * @param resolution second, minute or hour (default minute)
+     * @param from start of the range in epoch milliseconds (default: 60 buckets before to)
+     * @param to end of the range in epoch milliseconds (default: now)
+     * @param empresa nombre_empresa to chart, all ventas if omitted
+     * @return ResponseEntity with the series, bucket i starting at from + i * bucketMs
+     */
+    @GetMapping("/ventas/series")
+    public ResponseEntity<?> getVentasSeries(
+            @RequestParam(defaultValue = "minute") String resolution,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(required = false) String empresa) {
+        RollupResolution rollupResolution;
+        try {
+            rollupResolution = RollupResolution.valueOf(resolution.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Resolución inválida: " + resolution + " (second, minute u hour)");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - 59 * rollupResolution.getBucketMillis();
+        try {
+            return ResponseEntity.ok(ventasRollupService.getSeries(rollupResolution, start, end, empresa));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+    }
+
+    /**
+     * Top empresas by ventas, estimated with a count-min sketch
+     * @param limit maximum number of empresas (capped at ventas.aggregation.top-empresas)
+     * @return ResponseEntity with the leaderboard and its error bound
+     */
+    @GetMapping("/ventas/top-empresas")
+    public ResponseEntity<?> getTopEmpresas(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(ventasTopEmpresasService.getTopEmpresas(limit));
+    }
+
+    /**
+     * Estimated distinct buyers (by email) over a range of days
+     * @param empresa nombre_empresa, all empresas if omitted
+     * @param desde first day, ISO yyyy-MM-dd (default: today)
+     * @param hasta last day, ISO yyyy-MM-dd (default: desde)
+     * @return ResponseEntity with the HyperLogLog estimate and its relative error
+     */
+    @GetMapping("/ventas/compradores-unicos")
+    public ResponseEntity<?> getCompradoresUnicos(
+            @RequestParam(required = false) String empresa,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        LocalDate start = desde != null ? desde : ventasCompradoresService.today();
+        LocalDate end = hasta != null ? hasta : start;
+        try {
+            return ResponseEntity.ok(ventasCompradoresService.getCompradoresUnicos(empresa, start, end));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+    }
 }
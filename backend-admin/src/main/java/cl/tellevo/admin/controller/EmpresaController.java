@@ -1,19 +1,29 @@
 package cl.tellevo.admin.controller;
 
+import cl.tellevo.admin.config.EmpresaListingConfig;
 import cl.tellevo.admin.dto.EmpresaRequest;
 import cl.tellevo.admin.dto.EmpresaResponse;
 import cl.tellevo.admin.dto.EmpresaUploadRequest;
+import cl.tellevo.admin.service.EmpresaCache;
+import cl.tellevo.admin.service.EmpresaExportService;
 import cl.tellevo.admin.service.EmpresaService;
+import cl.tellevo.admin.service.EmpresasListBody;
 import cl.tellevo.admin.service.FileStorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -25,28 +35,83 @@ public class EmpresaController {
 
     private static final Logger logger = LoggerFactory.getLogger(EmpresaController.class);
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
     @Autowired
     private EmpresaService empresaService;
 
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private EmpresaCache empresaCache;
+
+    @Autowired
+    private EmpresaListingConfig listingConfig;
+
+    @Autowired
+    private EmpresaExportService empresaExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
 
 
     /**
-     * Get all empresas
-     * @return ResponseEntity with list of empresas
+     * Get empresas. With limit, cursor, sort or order (or when
+     * empresas.listing.unpaginated-enabled is false) one keyset page is
+     * returned; otherwise the full list is served pre-serialized (gzip when
+     * accepted) with a strong ETag, so an unchanged list is answered with 304.
+     * @param limit page size
+     * @param cursor nextCursor of the previous page
+     * @param sort id or nombre
+     * @param order asc or desc
+     * @param ifNoneMatch ETag of the list the client already has
+     * @param acceptEncoding codings the client accepts
+     * @return ResponseEntity with a page or the list of empresas
      */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> obtenerTodasEmpresas() {
+    public ResponseEntity<?> obtenerTodasEmpresas(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean paginated = limit != null || cursor != null || sort != null || order != null
+            || !listingConfig.isUnpaginatedEnabled();
+        if (paginated) {
+            return obtenerPaginaEmpresas(limit, cursor, sort, order);
+        }
+
         try {
             logger.info("GET /api/empresas - Retrieving all empresas");
 
-            List<EmpresaResponse> empresas = empresaService.obtenerTodasEmpresas();
+            EmpresasListBody body = empresaService.obtenerTodasEmpresasSerializadas();
+            boolean gzip = EmpresasListBody.acceptsGzip(acceptEncoding);
+            CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+
+            if (body.matches(ifNoneMatch)) {
+                logger.info("Empresas unchanged for client, returning 304");
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(body.getEtag(gzip))
+                    .cacheControl(cacheControl)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+            }
 
-            logger.info("Retrieved {} empresas", empresas.size());
-            return ResponseEntity.ok(empresas);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(body.getEtag(gzip))
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            logger.info("Retrieved {} empresas", body.getCount());
+            if (gzip) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.getGzip());
+            }
+            return response.body(body.getJson());
 
         } catch (Exception e) {
             logger.error("Unexpected error while retrieving empresas: {}", e.getMessage(), e);
@@ -58,6 +123,28 @@ public class EmpresaController {
         }
     }
 
+    private ResponseEntity<?> obtenerPaginaEmpresas(Integer limit, String cursor, String sort, String order) {
+        try {
+            logger.info("GET /api/empresas - Retrieving empresas page (sort={}, order={}, limit={})", sort, order, limit);
+            return ResponseEntity.ok(empresaService.obtenerEmpresasPaginadas(sort, order, limit, cursor));
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid empresas page request: {}", e.getMessage());
+
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        } catch (Exception e) {
+            logger.error("Unexpected error while retrieving empresas page: {}", e.getMessage(), e);
+
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Error interno del servidor al obtener las empresas");
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     /**
      * Get empresa by ID
      * @param id empresa ID
@@ -296,6 +383,43 @@ public class EmpresaController {
         }
     }
 
+    /**
+     * Export every empresa, streamed row by row from the database
+     * @param format ndjson (default) or csv
+     * @param request the current request, whose async timeout is raised to empresas.listing.export-timeout-ms
+     * @return ResponseEntity streaming the export as an attachment
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportarEmpresas(
+            @RequestParam(defaultValue = EmpresaExportService.FORMAT_NDJSON) String format,
+            HttpServletRequest request) {
+        String exportFormat = format.trim().toLowerCase();
+        if (!EmpresaExportService.isSupportedFormat(exportFormat)) {
+            return StreamingResponses.error(HttpStatus.BAD_REQUEST,
+                "Formato inválido: " + format + " (ndjson o csv)", objectMapper);
+        }
+
+        logger.info("GET /api/empresas/export - Exporting empresas as {}", exportFormat);
+        StreamingResponseBody body = out -> empresaExportService.exportar(out, exportFormat);
+        StreamingResponses.extendTimeout(request, listingConfig.getExportTimeoutMs());
+        boolean csv = EmpresaExportService.FORMAT_CSV.equals(exportFormat);
+        return ResponseEntity.ok()
+            .contentType(csv ? CSV : NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"empresas." + exportFormat + "\"")
+            .body(body);
+    }
+
+    /**
+     * Get empresa cache metrics
+     * @return ResponseEntity with hit/miss counts per lookup, sizes and evictions
+     */
+    @GetMapping("/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> obtenerEstadoCache() {
+        return ResponseEntity.ok(empresaCache.getStats());
+    }
+
     /**
      * Health check for empresa service
      * @return ResponseEntity with status
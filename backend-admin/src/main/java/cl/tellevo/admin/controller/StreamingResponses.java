@@ -0,0 +1,61 @@
+package cl.tellevo.admin.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Helpers for endpoints that stream their response body.
+ *
+ * Spring only streams a ResponseEntity whose declared body type is
+ * StreamingResponseBody, so these endpoints return one on every path,
+ * errors included.
+ *
+ * spring.mvc.async.request-timeout stays the container default for every
+ * other async response; long downloads raise it only for their own request.
+ * The handler adapter prepares the async request before the controller runs
+ * and StreamingResponseBody processing keeps whatever timeout it carries.
+ */
+final class StreamingResponses {
+
+    private StreamingResponses() {
+    }
+
+    /**
+     * @param request the current request, about to return a StreamingResponseBody
+     * @param timeoutMs how long the response may take to stream, in milliseconds
+     */
+    static void extendTimeout(HttpServletRequest request, long timeoutMs) {
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncWebRequest != null) {
+            asyncWebRequest.setTimeout(timeoutMs);
+        }
+    }
+
+    /**
+     * @param status error status
+     * @param message error message for the "message" field
+     * @param objectMapper mapper used for the JSON body
+     * @return ResponseEntity with the usual {"message": ...} error body
+     */
+    static ResponseEntity<StreamingResponseBody> error(HttpStatus status, String message, ObjectMapper objectMapper) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("message", message);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(errorResponse);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode error response", e);
+        }
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(out -> out.write(json));
+    }
+}
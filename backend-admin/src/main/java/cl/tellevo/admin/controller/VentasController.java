@@ -0,0 +1,185 @@
+package cl.tellevo.admin.controller;
+
+import cl.tellevo.admin.config.VentasEventLogConfig;
+import cl.tellevo.admin.dto.VentasSessionStats;
+import cl.tellevo.admin.eventlog.VentasEventLog;
+import cl.tellevo.admin.eventlog.VentasLogQuery;
+import cl.tellevo.admin.service.VentasHistoryService;
+import cl.tellevo.admin.service.VentasPostgresSink;
+import cl.tellevo.admin.service.VentasReorderBuffer;
+import cl.tellevo.admin.service.VentasGrpcClient;
+import cl.tellevo.admin.websocket.VentasBroadcastHub;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/ventas")
+public class VentasController {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentasController.class);
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int MAX_PAGE_SIZE = 100000;
+
+    private static final String VENTAS_PROTO = "proto/ventas.proto";
+
+    @Autowired
+    private VentasBroadcastHub broadcastHub;
+
+    @Autowired
+    private VentasGrpcClient ventasGrpcClient;
+
+    @Autowired
+    private VentasEventLog ventasEventLog;
+
+    @Autowired
+    private VentasHistoryService ventasHistoryService;
+
+    @Autowired
+    private VentasEventLogConfig eventLogConfig;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private VentasPostgresSink ventasPostgresSink;
+
+    @Autowired
+    private VentasReorderBuffer ventasReorderBuffer;
+
+    /**
+     * Read ventas back from the local event log as NDJSON, one venta per line
+     * followed by a {"type":"page",...} line with the cursor for the next page
+     * @param from earliest fecha_envio, yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss (optional)
+     * @param to latest fecha_envio, yyyy-MM-dd (whole day) or yyyy-MM-ddTHH:mm:ss (optional)
+     * @param empresa nombre_empresa (optional)
+     * @param cursor nextCursor of the previous page (optional)
+     * @param limit maximum ventas in this page
+     * @param request the current request, whose async timeout is raised to ventas.eventlog.history-timeout-ms
+     * @return ResponseEntity streaming the page
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> consultarVentas(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String empresa,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "1000") int limit,
+            HttpServletRequest request) {
+        if (!ventasEventLog.isOpen()) {
+            return StreamingResponses.error(HttpStatus.SERVICE_UNAVAILABLE,
+                "El historial de ventas no está disponible", objectMapper);
+        }
+
+        VentasLogQuery query;
+        long fromSequence;
+        try {
+            query = ventasHistoryService.buildQuery(from, to, empresa);
+            fromSequence = ventasHistoryService.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return StreamingResponses.error(HttpStatus.BAD_REQUEST, e.getMessage(), objectMapper);
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        StreamingResponseBody body = out -> ventasHistoryService.writePage(out, query, fromSequence, pageSize);
+        StreamingResponses.extendTimeout(request, eventLogConfig.getHistoryTimeoutMs());
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+     * Get delivery stats for every session connected to /ws/ventas
+     * @return ResponseEntity with per-session queue depth and drop counts
+     */
+    @GetMapping("/stream/sessions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> obtenerEstadoSesiones() {
+        List<VentasSessionStats> sessions = broadcastHub.getSessionStats();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("subscribed", broadcastHub.isSubscribed());
+        response.put("degraded", broadcastHub.isDegraded());
+        response.put("sessionCount", sessions.size());
+        response.put("sessions", sessions);
+        response.put("upstream", obtenerEstadoUpstream());
+        response.put("flowControl", broadcastHub.getFlowControlStats());
+        response.put("dedup", broadcastHub.getDedupStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get the state of the local ventas event log
+     * @return ResponseEntity with segment count, disk use, sequence range and flush stats
+     */
+    @GetMapping("/log")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> obtenerEstadoLog() {
+        return ResponseEntity.ok(ventasEventLog.getStats());
+    }
+
+    /**
+     * Get the state of the Postgres write-behind sink
+     * @return ResponseEntity with queue depth, lag, written/dropped counts and the last error
+     */
+    @GetMapping("/sink")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> obtenerEstadoSink() {
+        return ResponseEntity.ok(ventasPostgresSink.getStats());
+    }
+
+    /**
+     * Get the state of the event-time reorder buffer in front of the aggregates
+     * @return ResponseEntity with buffer depth, watermark and late venta counts
+     */
+    @GetMapping("/reorder")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> obtenerEstadoReordenamiento() {
+        return ResponseEntity.ok(ventasReorderBuffer.getStats());
+    }
+
+    /**
+     * Get the protobuf schema used by binary /ws/ventas frames (subprotocol ventas.protobuf.v1)
+     * @return ResponseEntity with the ventas.proto source
+     */
+    @GetMapping(value = "/schema", produces = MediaType.TEXT_PLAIN_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> obtenerEsquemaProtobuf() {
+        try (InputStream proto = new ClassPathResource(VENTAS_PROTO).getInputStream()) {
+            return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(new String(proto.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.error("Could not read {} from classpath: {}", VENTAS_PROTO, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("ventas.proto no disponible");
+        }
+    }
+
+    private Map<String, Object> obtenerEstadoUpstream() {
+        Map<String, Object> upstream = new HashMap<>();
+        upstream.put("activeCalls", ventasGrpcClient.getActiveCallCount());
+        upstream.put("orphanedCalls", ventasGrpcClient.getOrphanedCallCount());
+        upstream.put("startedCalls", ventasGrpcClient.getStartedCallCount());
+        upstream.put("cancelledCalls", ventasGrpcClient.getCancelledCallCount());
+        return upstream;
+    }
+}
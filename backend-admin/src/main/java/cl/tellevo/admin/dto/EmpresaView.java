@@ -0,0 +1,21 @@
+package cl.tellevo.admin.dto;
+
+/**
+ * Read-only projection of an empresa row for EmpresaRepository read queries.
+ *
+ * Spring Data selects only these columns and returns them without creating
+ * managed Empresa entities, so reads skip the persistence context and its
+ * dirty-checking snapshots.
+ */
+public interface EmpresaView {
+
+    Long getId();
+
+    String getNombre();
+
+    String getCodigoPais();
+
+    String getDominio();
+
+    String getLogoUrl();
+}
@@ -0,0 +1,63 @@
+package cl.tellevo.admin.dto;
+
+import java.util.List;
+
+public class EmpresasPage {
+
+    private final List<EmpresaResponse> empresas;
+    private final String sort;
+    private final String order;
+    private final int limit;
+    private final boolean hasMore;
+    private final String nextCursor;
+
+    public EmpresasPage(List<EmpresaResponse> empresas, String sort, String order, int limit,
+                        boolean hasMore, String nextCursor) {
+        this.empresas = empresas;
+        this.sort = sort;
+        this.order = order;
+        this.limit = limit;
+        this.hasMore = hasMore;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<EmpresaResponse> getEmpresas() {
+        return empresas;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public String getOrder() {
+        return order;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    /**
+     * @return cursor for the next page, null on the last one
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "EmpresasPage{" +
+                "empresas=" + empresas.size() +
+                ", sort='" + sort + '\'' +
+                ", order='" + order + '\'' +
+                ", limit=" + limit +
+                ", hasMore=" + hasMore +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
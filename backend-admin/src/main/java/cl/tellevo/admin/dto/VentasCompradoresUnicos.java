@@ -0,0 +1,56 @@
+package cl.tellevo.admin.dto;
+
+import java.time.LocalDate;
+
+public class VentasCompradoresUnicos {
+
+    private final String nombreEmpresa;
+    private final LocalDate desde;
+    private final LocalDate hasta;
+    private final long compradoresUnicos;
+    private final double errorRelativo;
+
+    public VentasCompradoresUnicos(String nombreEmpresa, LocalDate desde, LocalDate hasta,
+                                   long compradoresUnicos, double errorRelativo) {
+        this.nombreEmpresa = nombreEmpresa;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.compradoresUnicos = compradoresUnicos;
+        this.errorRelativo = errorRelativo;
+    }
+
+    // Getters
+    public String getNombreEmpresa() {
+        return nombreEmpresa;
+    }
+
+    public LocalDate getDesde() {
+        return desde;
+    }
+
+    public LocalDate getHasta() {
+        return hasta;
+    }
+
+    public long getCompradoresUnicos() {
+        return compradoresUnicos;
+    }
+
+    /**
+     * @return relative standard error of the estimate (0.0115 is about 1.15%)
+     */
+    public double getErrorRelativo() {
+        return errorRelativo;
+    }
+
+    @Override
+    public String toString() {
+        return "VentasCompradoresUnicos{" +
+                "nombreEmpresa='" + nombreEmpresa + '\'' +
+                ", desde=" + desde +
+                ", hasta=" + hasta +
+                ", compradoresUnicos=" + compradoresUnicos +
+                ", errorRelativo=" + errorRelativo +
+                '}';
+    }
+}
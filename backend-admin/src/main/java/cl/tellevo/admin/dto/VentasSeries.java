@@ -0,0 +1,60 @@
+package cl.tellevo.admin.dto;
+
+public class VentasSeries {
+
+    private final String resolution;
+    private final long bucketMs;
+    private final long from;
+    private final long to;
+    private final String nombreEmpresa;
+    private final long[] counts;
+
+    public VentasSeries(String resolution, long bucketMs, long from, long to, String nombreEmpresa, long[] counts) {
+        this.resolution = resolution;
+        this.bucketMs = bucketMs;
+        this.from = from;
+        this.to = to;
+        this.nombreEmpresa = nombreEmpresa;
+        this.counts = counts;
+    }
+
+    // Getters
+    public String getResolution() {
+        return resolution;
+    }
+
+    public long getBucketMs() {
+        return bucketMs;
+    }
+
+    /**
+     * @return start of the first bucket in epoch milliseconds; bucket i starts at from + i * bucketMs
+     */
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public String getNombreEmpresa() {
+        return nombreEmpresa;
+    }
+
+    public long[] getCounts() {
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return "VentasSeries{" +
+                "resolution='" + resolution + '\'' +
+                ", bucketMs=" + bucketMs +
+                ", from=" + from +
+                ", to=" + to +
+                ", nombreEmpresa='" + nombreEmpresa + '\'' +
+                ", points=" + counts.length +
+                '}';
+    }
+}
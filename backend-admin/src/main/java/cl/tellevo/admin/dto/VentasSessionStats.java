@@ -0,0 +1,89 @@
+package cl.tellevo.admin.dto;
+
+import java.util.Map;
+
+public class VentasSessionStats {
+
+    private final String sessionId;
+    private final String encoding;
+    private final String slowConsumerPolicy;
+    private final int queueCapacity;
+    private final int queueDepth;
+    private final long sent;
+    private final long dropped;
+    private final int batchSize;
+    private final long batchMs;
+    private final Map<String, Object> filter;
+
+    public VentasSessionStats(String sessionId, String encoding, String slowConsumerPolicy, int queueCapacity,
+                              int queueDepth, long sent, long dropped, int batchSize, long batchMs,
+                              Map<String, Object> filter) {
+        this.sessionId = sessionId;
+        this.encoding = encoding;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.queueCapacity = queueCapacity;
+        this.queueDepth = queueDepth;
+        this.sent = sent;
+        this.dropped = dropped;
+        this.batchSize = batchSize;
+        this.batchMs = batchMs;
+        this.filter = filter;
+    }
+
+    // Getters
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public String getSlowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getBatchMs() {
+        return batchMs;
+    }
+
+    public Map<String, Object> getFilter() {
+        return filter;
+    }
+
+    @Override
+    public String toString() {
+        return "VentasSessionStats{" +
+                "sessionId='" + sessionId + '\'' +
+                ", encoding='" + encoding + '\'' +
+                ", slowConsumerPolicy='" + slowConsumerPolicy + '\'' +
+                ", queueCapacity=" + queueCapacity +
+                ", queueDepth=" + queueDepth +
+                ", sent=" + sent +
+                ", dropped=" + dropped +
+                ", batchSize=" + batchSize +
+                ", batchMs=" + batchMs +
+                ", filter=" + filter +
+                '}';
+    }
+}
@@ -0,0 +1,85 @@
+package cl.tellevo.admin.dto;
+
+import java.util.List;
+
+public class VentasTopEmpresas {
+
+    private final int k;
+    private final long totalVentas;
+    private final double epsilon;
+    private final double delta;
+    private final long errorMaximo;
+    private final List<EmpresaEstimada> empresas;
+
+    public VentasTopEmpresas(int k, long totalVentas, double epsilon, double delta, long errorMaximo,
+                             List<EmpresaEstimada> empresas) {
+        this.k = k;
+        this.totalVentas = totalVentas;
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.errorMaximo = errorMaximo;
+        this.empresas = empresas;
+    }
+
+    // Getters
+    public int getK() {
+        return k;
+    }
+
+    public long getTotalVentas() {
+        return totalVentas;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    /**
+     * @return how far any estimate may exceed the true count, with probability 1 - delta
+     */
+    public long getErrorMaximo() {
+        return errorMaximo;
+    }
+
+    public List<EmpresaEstimada> getEmpresas() {
+        return empresas;
+    }
+
+    @Override
+    public String toString() {
+        return "VentasTopEmpresas{" +
+                "k=" + k +
+                ", totalVentas=" + totalVentas +
+                ", errorMaximo=" + errorMaximo +
+                ", empresas=" + empresas +
+                '}';
+    }
+
+    public static class EmpresaEstimada {
+
+        private final String nombreEmpresa;
+        private final long ventas;
+
+        public EmpresaEstimada(String nombreEmpresa, long ventas) {
+            this.nombreEmpresa = nombreEmpresa;
+            this.ventas = ventas;
+        }
+
+        public String getNombreEmpresa() {
+            return nombreEmpresa;
+        }
+
+        public long getVentas() {
+            return ventas;
+        }
+
+        @Override
+        public String toString() {
+            return nombreEmpresa + "=" + ventas;
+        }
+    }
+}
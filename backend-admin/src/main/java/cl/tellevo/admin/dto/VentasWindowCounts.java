@@ -0,0 +1,50 @@
+package cl.tellevo.admin.dto;
+
+public class VentasWindowCounts {
+
+    private final String nombreEmpresa;
+    private final long ultimoMinuto;
+    private final long ultimaHora;
+    private final long ultimoDia;
+    private final long total;
+
+    public VentasWindowCounts(String nombreEmpresa, long ultimoMinuto, long ultimaHora, long ultimoDia, long total) {
+        this.nombreEmpresa = nombreEmpresa;
+        this.ultimoMinuto = ultimoMinuto;
+        this.ultimaHora = ultimaHora;
+        this.ultimoDia = ultimoDia;
+        this.total = total;
+    }
+
+    // Getters
+    public String getNombreEmpresa() {
+        return nombreEmpresa;
+    }
+
+    public long getUltimoMinuto() {
+        return ultimoMinuto;
+    }
+
+    public long getUltimaHora() {
+        return ultimaHora;
+    }
+
+    public long getUltimoDia() {
+        return ultimoDia;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "VentasWindowCounts{" +
+                "nombreEmpresa='" + nombreEmpresa + '\'' +
+                ", ultimoMinuto=" + ultimoMinuto +
+                ", ultimaHora=" + ultimaHora +
+                ", ultimoDia=" + ultimoDia +
+                ", total=" + total +
+                '}';
+    }
+}
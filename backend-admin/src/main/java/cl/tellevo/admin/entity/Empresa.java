@@ -6,7 +6,10 @@ import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(name = "empresa")
+@Table(name = "empresa", indexes = {
+    // Keyset pagination by nombre (see EmpresaRepository.findPageByNombreAfter)
+    @Index(name = "idx_empresa_nombre_id", columnList = "nombre, id")
+})
 public class Empresa {
 
     @Id
@@ -0,0 +1,369 @@
+package cl.tellevo.admin.eventlog;
+
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * One fixed-size, memory-mapped file of the ventas event log.
+ *
+ * Records are appended back to back:
+ * <pre>
+ *   int  payload length | LENGTH_MARKER
+ *   int  CRC32C of everything after this field
+ *   long sequence
+ *   long append time (epoch ms)
+ *   int  venta id
+ *   long fecha_envio (epoch ms, Long.MIN_VALUE if unknown)
+ *   ...  VentasResponse protobuf
+ * </pre>
+ * The file is zero-filled when created, so a zero length word marks the end.
+ * The marker bit keeps the word non-zero for an empty payload (a venta with
+ * only default fields serializes to nothing); segments written before it
+ * have plain positive lengths and are still read.
+ *
+ * A sparse index keeps one entry per indexInterval bytes with the block's
+ * first position and sequence and its id and fecha_envio ranges, in
+ * primitive arrays. Scans binary-search the start block by sequence and
+ * skip closed blocks whose ranges cannot match.
+ *
+ * One thread appends; any number of threads scan. Appends publish the new
+ * end through the volatile writePosition, and scans never read past it.
+ */
+final class LogSegment {
+
+    static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 8;
+    private static final int LENGTH_MARKER = 0x80000000;
+
+    private final Path path;
+    private final long baseSequence;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int indexInterval;
+
+    // Writer only
+    private final ByteBuffer writeView;
+    private final CRC32C crc = new CRC32C();
+    private int nextIndexPosition;
+
+    private volatile int writePosition;
+    private volatile long nextSequence;
+    private volatile long lastAppendMillis;
+    private volatile boolean sealed;
+
+    // Guarded by this
+    private int flushedPosition;
+
+    // Sparse index, entries below indexCount are published
+    private int[] indexPositions = new int[64];
+    private long[] indexSequences = new long[64];
+    private int[] indexMinIds = new int[64];
+    private int[] indexMaxIds = new int[64];
+    private long[] indexMinFechas = new long[64];
+    private long[] indexMaxFechas = new long[64];
+    private volatile int indexCount;
+
+    private LogSegment(Path path, long baseSequence, FileChannel channel, int capacity, int indexInterval)
+            throws IOException {
+        this.path = path;
+        this.baseSequence = baseSequence;
+        this.channel = channel;
+        this.capacity = capacity;
+        this.indexInterval = Math.max(HEADER_BYTES, indexInterval);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.writeView = buffer.duplicate();
+        this.nextSequence = baseSequence;
+    }
+
+    /**
+     * Create an empty segment whose first record will have baseSequence
+     */
+    static LogSegment create(Path directory, long baseSequence, int capacity, int indexInterval) throws IOException {
+        Path path = directory.resolve(fileName(baseSequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new LogSegment(path, baseSequence, channel, capacity, indexInterval);
+    }
+
+    /**
+     * Open an existing segment, rebuilding the index and stopping at the
+     * first record that is incomplete or fails its checksum
+     */
+    static LogSegment open(Path path, int indexInterval) throws IOException {
+        long baseSequence = parseBaseSequence(path);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Unexpected segment size " + size + " for " + path);
+        }
+        LogSegment segment = new LogSegment(path, baseSequence, channel, (int) size, indexInterval);
+        segment.recover();
+        return segment;
+    }
+
+    static String fileName(long baseSequence) {
+        return String.format("%020d.seg", baseSequence);
+    }
+
+    static boolean isSegmentFile(Path path) {
+        return path.getFileName().toString().matches("\\d{20}\\.seg");
+    }
+
+    private static long parseBaseSequence(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - ".seg".length()));
+    }
+
+    /**
+     * Append one venta
+     * @return false if the segment has no room left for it
+     */
+    boolean append(long sequence, long appendMillis, int id, long fecha, VentasResponse venta) throws IOException {
+        int payload = venta.getSerializedSize();
+        int position = writePosition;
+        int end = position + HEADER_BYTES + payload;
+        if (end > capacity || end < 0) {
+            return false;
+        }
+
+        writeView.limit(end).position(position + HEADER_BYTES);
+        CodedOutputStream out = CodedOutputStream.newInstance(writeView);
+        venta.writeTo(out);
+        out.flush();
+
+        writeView.putLong(position + 8, sequence);
+        writeView.putLong(position + 16, appendMillis);
+        writeView.putInt(position + 24, id);
+        writeView.putLong(position + 28, fecha);
+
+        crc.reset();
+        writeView.limit(end).position(position + 8);
+        crc.update(writeView);
+        writeView.putInt(position + 4, (int) crc.getValue());
+        writeView.putInt(position, payload | LENGTH_MARKER);
+
+        indexRecord(position, sequence, id, fecha);
+        lastAppendMillis = appendMillis;
+        nextSequence = sequence + 1;
+        writePosition = end;
+        return true;
+    }
+
+    /**
+     * Read records from fromSequence on that match the query
+     * @return false if the visitor asked to stop
+     */
+    boolean scan(long fromSequence, VentasLogQuery query, VentasLogVisitor visitor)
+            throws InvalidProtocolBufferException {
+        int end = writePosition;
+        int count = indexCount;
+        if (count == 0 || fromSequence >= nextSequence) {
+            return true;
+        }
+        ByteBuffer view = buffer.duplicate();
+
+        for (int block = startBlock(fromSequence, count); block < count; block++) {
+            int start = indexPositions[block];
+            if (start >= end) {
+                break;
+            }
+            int blockEnd = block + 1 < count ? Math.min(indexPositions[block + 1], end) : end;
+            // The last block may still be growing, so its ranges are never trusted for skipping
+            boolean open = block == count - 1;
+            if (!open && !query.overlaps(indexMinIds[block], indexMaxIds[block],
+                    indexMinFechas[block], indexMaxFechas[block])) {
+                continue;
+            }
+
+            int position = start;
+            while (position < blockEnd) {
+                int length = payloadLength(view.getInt(position));
+                long sequence = view.getLong(position + 8);
+                if (sequence >= fromSequence
+                        && query.matchesHeader(view.getInt(position + 24), view.getLong(position + 28))) {
+                    view.limit(position + HEADER_BYTES + length).position(position + HEADER_BYTES);
+                    VentasResponse venta = VentasResponse.parseFrom(view);
+                    view.clear();
+                    if (query.matches(venta) && !visitor.visit(sequence, venta)) {
+                        return false;
+                    }
+                }
+                position += HEADER_BYTES + length;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write appended records to disk
+     */
+    synchronized void force() {
+        int position = writePosition;
+        if (position > flushedPosition) {
+            buffer.force(flushedPosition, position - flushedPosition);
+            flushedPosition = position;
+        }
+    }
+
+    boolean isFlushed() {
+        synchronized (this) {
+            return flushedPosition == writePosition;
+        }
+    }
+
+    void seal() {
+        sealed = true;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    long getBaseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * @return sequence the next record in this segment would get
+     */
+    long getNextSequence() {
+        return nextSequence;
+    }
+
+    boolean isEmpty() {
+        return nextSequence == baseSequence;
+    }
+
+    long getLastAppendMillis() {
+        return lastAppendMillis;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    private int startBlock(long fromSequence, int count) {
+        // Last block whose first sequence is at or before fromSequence
+        int low = 0;
+        int high = count - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (indexSequences[mid] <= fromSequence) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private void indexRecord(int position, long sequence, int id, long fecha) {
+        int count = indexCount;
+        if (count == 0 || position >= nextIndexPosition) {
+            if (count == indexPositions.length) {
+                growIndex();
+            }
+            indexPositions[count] = position;
+            indexSequences[count] = sequence;
+            indexMinIds[count] = id;
+            indexMaxIds[count] = id;
+            indexMinFechas[count] = fecha;
+            indexMaxFechas[count] = fecha;
+            nextIndexPosition = position + indexInterval;
+            indexCount = count + 1;
+        } else {
+            int last = count - 1;
+            indexMinIds[last] = Math.min(indexMinIds[last], id);
+            indexMaxIds[last] = Math.max(indexMaxIds[last], id);
+            indexMinFechas[last] = Math.min(indexMinFechas[last], fecha);
+            indexMaxFechas[last] = Math.max(indexMaxFechas[last], fecha);
+        }
+    }
+
+    private void growIndex() {
+        int size = indexPositions.length * 2;
+        indexPositions = Arrays.copyOf(indexPositions, size);
+        indexSequences = Arrays.copyOf(indexSequences, size);
+        indexMinIds = Arrays.copyOf(indexMinIds, size);
+        indexMaxIds = Arrays.copyOf(indexMaxIds, size);
+        indexMinFechas = Arrays.copyOf(indexMinFechas, size);
+        indexMaxFechas = Arrays.copyOf(indexMaxFechas, size);
+    }
+
+    private void recover() {
+        int position = 0;
+        ByteBuffer view = buffer.duplicate();
+        while (position + HEADER_BYTES <= capacity) {
+            int length = payloadLength(view.getInt(position));
+            int end = position + HEADER_BYTES + length;
+            if (length < 0 || end > capacity || end < 0) {
+                break;
+            }
+            crc.reset();
+            view.limit(end).position(position + 8);
+            crc.update(view);
+            view.clear();
+            if ((int) crc.getValue() != view.getInt(position + 4)) {
+                break;
+            }
+
+            long sequence = view.getLong(position + 8);
+            indexRecord(position, sequence, view.getInt(position + 24), view.getLong(position + 28));
+            lastAppendMillis = view.getLong(position + 16);
+            nextSequence = sequence + 1;
+            position = end;
+        }
+
+        if (position + 4 <= capacity && view.getInt(position) != 0) {
+            // Torn tail from a crash mid-append: clear it so it is never mistaken for records
+            for (int i = position; i < capacity; i++) {
+                view.put(i, (byte) 0);
+            }
+        }
+        writePosition = position;
+        flushedPosition = position;
+    }
+
+    /**
+     * @return payload length stored in a record's length word, -1 at the end of the records
+     */
+    private static int payloadLength(int word) {
+        if ((word & LENGTH_MARKER) != 0) {
+            return word & ~LENGTH_MARKER;
+        }
+        // Zero ends the records; a plain positive length is a record from before the marker
+        return word > 0 ? word : -1;
+    }
+}
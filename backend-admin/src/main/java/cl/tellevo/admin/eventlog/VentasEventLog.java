@@ -0,0 +1,332 @@
+package cl.tellevo.admin.eventlog;
+
+import cl.tellevo.admin.config.VentasEventLogConfig;
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import cl.tellevo.admin.service.FechaEnvioParser;
+import cl.tellevo.admin.service.VentasEventListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Durable, append-only history of every venta delivered by StreamVentas.
+ *
+ * Ventas are appended to fixed-size memory-mapped LogSegment files in the
+ * order received and numbered with a log sequence. Appending only copies
+ * into the mapping; a flusher thread forces the dirty range to disk every
+ * flush-interval-ms, or as soon as flush-records appends are pending, so
+ * one fsync covers a whole group of ventas.
+ *
+ * Old segments are deleted once the log exceeds retention-bytes or their
+ * last venta is older than retention-hours. On startup the existing
+ * segments are reopened, their indexes rebuilt and any torn tail dropped;
+ * numbering continues where the log left off.
+ */
+@Service
+public class VentasEventLog implements VentasEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentasEventLog.class);
+
+    private static final long RETENTION_CHECK_MS = 60_000;
+
+    private final VentasEventLogConfig logConfig;
+    private final FechaEnvioParser fechaParser;
+    private final Path directory;
+    private final ScheduledExecutorService flusher;
+    private final Object appendLock = new Object();
+
+    // Replaced (never mutated) when segments roll or expire; the last one is active
+    private volatile List<LogSegment> segments = List.of();
+    private volatile long nextSequence;
+    private volatile boolean open;
+
+    private final AtomicInteger unflushedRecords = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong failedAppends = new AtomicLong();
+    private volatile long lastFlushAt;
+
+    @Autowired
+    public VentasEventLog(VentasEventLogConfig logConfig, FechaEnvioParser fechaParser) {
+        this.logConfig = logConfig;
+        this.fechaParser = fechaParser;
+        this.directory = Paths.get(logConfig.getDirectory());
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ventas-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!logConfig.isEnabled()) {
+            logger.info("Ventas event log disabled");
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+            List<LogSegment> recovered = new ArrayList<>();
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(LogSegment::isSegmentFile).sorted(Comparator.comparing(Path::toString)).toList();
+            }
+            for (Path file : files) {
+                recovered.add(LogSegment.open(file, logConfig.getIndexIntervalBytes()));
+            }
+            for (int i = 0; i < recovered.size() - 1; i++) {
+                recovered.get(i).seal();
+            }
+
+            long next = recovered.isEmpty() ? 0 : recovered.get(recovered.size() - 1).getNextSequence();
+            if (recovered.isEmpty()) {
+                recovered.add(LogSegment.create(directory, next, logConfig.getSegmentBytes(),
+                    logConfig.getIndexIntervalBytes()));
+            }
+            segments = List.copyOf(recovered);
+            nextSequence = next;
+            open = true;
+            logger.info("Ventas event log at {}: {} segment(s), next sequence {}",
+                directory.toAbsolutePath(), recovered.size(), next);
+        } catch (IOException e) {
+            logger.error("Could not open ventas event log at {}, history will not be recorded: {}",
+                directory, e.getMessage(), e);
+            return;
+        }
+
+        long interval = Math.max(1, logConfig.getFlushIntervalMs());
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::applyRetention, RETENTION_CHECK_MS, RETENTION_CHECK_MS,
+            TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onVenta(VentasResponse venta) {
+        if (!open) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long fecha = fechaParser.toEpochMillis(venta.getFechaEnvio());
+
+        synchronized (appendLock) {
+            try {
+                LogSegment active = segments.get(segments.size() - 1);
+                if (!active.append(nextSequence, now, venta.getId(), fecha, venta)) {
+                    if (active.isEmpty()) {
+                        failedAppends.incrementAndGet();
+                        logger.error("Venta {} does not fit in an empty {} byte segment, not logged",
+                            venta.getId(), logConfig.getSegmentBytes());
+                        return;
+                    }
+                    active = roll(active);
+                    if (!active.append(nextSequence, now, venta.getId(), fecha, venta)) {
+                        failedAppends.incrementAndGet();
+                        logger.error("Venta {} does not fit in a new segment, not logged", venta.getId());
+                        return;
+                    }
+                }
+                nextSequence++;
+            } catch (IOException | RuntimeException e) {
+                failedAppends.incrementAndGet();
+                logger.error("Could not append venta {} to the event log", venta.getId(), e);
+                return;
+            }
+        }
+
+        if (unflushedRecords.incrementAndGet() >= logConfig.getFlushRecords()
+                && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * Read logged ventas in log order
+     * @param fromSequence first sequence to consider
+     * @param query id, fecha_envio and empresa filter
+     * @param limit maximum number of ventas to visit
+     * @param visitor receives matching ventas
+     * @return sequence to continue from; equal to getNextSequence() at the time of the call if the log was exhausted
+     */
+    public long scan(long fromSequence, VentasLogQuery query, int limit, VentasLogVisitor visitor) throws IOException {
+        long end = nextSequence;
+        long start = Math.max(fromSequence, getFirstSequence());
+        if (limit <= 0 || start >= end) {
+            return start;
+        }
+
+        long[] resume = {end};
+        int[] visited = {0};
+        for (LogSegment segment : segments) {
+            if (segment.getNextSequence() <= start) {
+                continue;
+            }
+            boolean more = segment.scan(start, query, (sequence, venta) -> {
+                if (sequence >= end) {
+                    return false;
+                }
+                visited[0]++;
+                if (!visitor.visit(sequence, venta) || visited[0] >= limit) {
+                    resume[0] = sequence + 1;
+                    return false;
+                }
+                return true;
+            });
+            if (!more) {
+                break;
+            }
+        }
+        return resume[0];
+    }
+
+    /**
+     * @return sequence of the oldest venta still retained
+     */
+    public long getFirstSequence() {
+        List<LogSegment> current = segments;
+        return current.isEmpty() ? nextSequence : current.get(0).getBaseSequence();
+    }
+
+    /**
+     * @return sequence the next logged venta will get
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * @return segment, flush and retention figures for monitoring
+     */
+    public Map<String, Object> getStats() {
+        List<LogSegment> current = segments;
+        long diskBytes = 0;
+        for (LogSegment segment : current) {
+            diskBytes += segment.getCapacity();
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", logConfig.isEnabled());
+        stats.put("open", open);
+        stats.put("directory", directory.toAbsolutePath().toString());
+        stats.put("segments", current.size());
+        stats.put("diskBytes", diskBytes);
+        stats.put("firstSequence", getFirstSequence());
+        stats.put("nextSequence", nextSequence);
+        stats.put("unflushedRecords", unflushedRecords.get());
+        stats.put("lastFlushAt", lastFlushAt);
+        stats.put("failedAppends", failedAppends.get());
+        return stats;
+    }
+
+    private LogSegment roll(LogSegment active) throws IOException {
+        active.seal();
+        LogSegment next = LogSegment.create(directory, nextSequence, logConfig.getSegmentBytes(),
+            logConfig.getIndexIntervalBytes());
+        List<LogSegment> updated = new ArrayList<>(segments);
+        updated.add(next);
+        segments = List.copyOf(updated);
+        logger.info("Ventas event log rolled to segment {}", next.getPath().getFileName());
+        // Make sure the sealed segment's tail reaches disk without waiting for the next tick
+        flusher.execute(this::flush);
+        return next;
+    }
+
+    private void flush() {
+        flushRequested.set(false);
+        int pending = unflushedRecords.getAndSet(0);
+        try {
+            for (LogSegment segment : segments) {
+                if (!segment.isFlushed()) {
+                    segment.force();
+                }
+            }
+            if (pending > 0) {
+                lastFlushAt = System.currentTimeMillis();
+            }
+        } catch (RuntimeException e) {
+            unflushedRecords.addAndGet(pending);
+            logger.error("Could not flush the ventas event log", e);
+        }
+    }
+
+    private void applyRetention() {
+        long maxAge = TimeUnit.HOURS.toMillis(logConfig.getRetentionHours());
+        long now = System.currentTimeMillis();
+        List<LogSegment> expired = new ArrayList<>();
+
+        synchronized (appendLock) {
+            List<LogSegment> kept = new ArrayList<>(segments);
+            long diskBytes = 0;
+            for (LogSegment segment : kept) {
+                diskBytes += segment.getCapacity();
+            }
+            // The active segment is never deleted
+            while (kept.size() > 1) {
+                LogSegment oldest = kept.get(0);
+                boolean tooBig = diskBytes > logConfig.getRetentionBytes();
+                boolean tooOld = now - oldest.getLastAppendMillis() > maxAge;
+                if (!tooBig && !tooOld) {
+                    break;
+                }
+                kept.remove(0);
+                expired.add(oldest);
+                diskBytes -= oldest.getCapacity();
+            }
+            if (expired.isEmpty()) {
+                return;
+            }
+            segments = List.copyOf(kept);
+        }
+
+        for (LogSegment segment : expired) {
+            try {
+                // Scans already holding the segment keep reading from the mapping
+                segment.delete();
+                logger.info("Deleted ventas event log segment {} (sequences {}-{})",
+                    segment.getPath().getFileName(), segment.getBaseSequence(), segment.getNextSequence() - 1);
+            } catch (IOException e) {
+                logger.error("Could not delete ventas event log segment {}", segment.getPath(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        if (!open) {
+            return;
+        }
+        synchronized (appendLock) {
+            open = false;
+            for (LogSegment segment : segments) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    logger.error("Could not close ventas event log segment {}", segment.getPath(), e);
+                }
+            }
+        }
+    }
+}
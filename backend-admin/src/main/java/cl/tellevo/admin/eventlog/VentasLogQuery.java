@@ -0,0 +1,81 @@
+package cl.tellevo.admin.eventlog;
+
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+
+/**
+ * Record filter for VentasEventLog scans. Id and fecha_envio bounds are
+ * inclusive and checked against the record header and the sparse index
+ * before the venta is decoded; the empresa is checked on the decoded venta.
+ */
+public final class VentasLogQuery {
+
+    public static final VentasLogQuery ALL =
+        new VentasLogQuery(Integer.MIN_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, null);
+
+    private final int idFrom;
+    private final int idTo;
+    private final long fechaFrom;
+    private final long fechaTo;
+    private final String empresa;
+
+    /**
+     * @param idFrom lowest venta id
+     * @param idTo highest venta id
+     * @param fechaFrom earliest fecha_envio in epoch milliseconds
+     * @param fechaTo latest fecha_envio in epoch milliseconds
+     * @param empresa nombre_empresa to match, or null for any
+     */
+    public VentasLogQuery(int idFrom, int idTo, long fechaFrom, long fechaTo, String empresa) {
+        this.idFrom = idFrom;
+        this.idTo = idTo;
+        this.fechaFrom = fechaFrom;
+        this.fechaTo = fechaTo;
+        this.empresa = empresa;
+    }
+
+    /**
+     * @return false if no record within these id and fecha ranges can match
+     */
+    boolean overlaps(int minId, int maxId, long minFecha, long maxFecha) {
+        return maxId >= idFrom && minId <= idTo && maxFecha >= fechaFrom && minFecha <= fechaTo;
+    }
+
+    boolean matchesHeader(int id, long fecha) {
+        return id >= idFrom && id <= idTo && fecha >= fechaFrom && fecha <= fechaTo;
+    }
+
+    boolean matches(VentasResponse venta) {
+        return empresa == null || empresa.equals(venta.getNombreEmpresa());
+    }
+
+    public int getIdFrom() {
+        return idFrom;
+    }
+
+    public int getIdTo() {
+        return idTo;
+    }
+
+    public long getFechaFrom() {
+        return fechaFrom;
+    }
+
+    public long getFechaTo() {
+        return fechaTo;
+    }
+
+    public String getEmpresa() {
+        return empresa;
+    }
+
+    @Override
+    public String toString() {
+        return "VentasLogQuery{" +
+                "idFrom=" + idFrom +
+                ", idTo=" + idTo +
+                ", fechaFrom=" + fechaFrom +
+                ", fechaTo=" + fechaTo +
+                ", empresa='" + empresa + '\'' +
+                '}';
+    }
+}
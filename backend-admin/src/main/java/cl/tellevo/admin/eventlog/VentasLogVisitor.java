@@ -0,0 +1,17 @@
+package cl.tellevo.admin.eventlog;
+
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+
+/**
+ * Receives ventas read back from the VentasEventLog, in log order.
+ */
+@FunctionalInterface
+public interface VentasLogVisitor {
+
+    /**
+     * @param sequence position of the venta in the log
+     * @param venta the venta as it was received
+     * @return false to stop reading
+     */
+    boolean visit(long sequence, VentasResponse venta);
+}
@@ -1,14 +1,30 @@
 package cl.tellevo.admin.repository;
 
+import cl.tellevo.admin.dto.EmpresaView;
 import cl.tellevo.admin.entity.Empresa;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface EmpresaRepository extends JpaRepository<Empresa, Long> {
 
+    /**
+     * Select list for EmpresaView in JPQL queries; aliases must match the getters
+     */
+    String VIEW_COLUMNS = "e.id AS id, e.nombre AS nombre, e.codigoPais AS codigoPais, " +
+                          "e.dominio AS dominio, e.logoUrl AS logoUrl";
+
     /**
      * Find empresa by dominio
      * @param dominio the dominio to search for
@@ -23,10 +39,107 @@ public interface EmpresaRepository extends JpaRepository<Empresa, Long> {
      */
     boolean existsByDominio(String dominio);
 
+    /**
+     * Find empresa by ID as a read-only projection
+     * @param id the empresa ID
+     * @return Optional containing the empresa columns if found
+     */
+    @Transactional(readOnly = true)
+    Optional<EmpresaView> findProjectedById(Long id);
+
+    /**
+     * Find empresa by dominio as a read-only projection
+     * @param dominio the dominio to search for
+     * @return Optional containing the empresa columns if found
+     */
+    @Transactional(readOnly = true)
+    Optional<EmpresaView> findProjectedByDominio(String dominio);
+
+    /**
+     * Find every empresa as read-only projections
+     * @return all empresas
+     */
+    @Transactional(readOnly = true)
+    List<EmpresaView> findAllProjectedBy();
+
     /**
      * Find empresa by nombre
      * @param nombre the nombre to search for
      * @return Optional containing the empresa if found
      */
     Optional<Empresa> findByNombre(String nombre);
+
+    /**
+     * Keyset page by id, ascending; walks the primary key index
+     * @param id last id of the previous page (Long.MIN_VALUE for the first page)
+     * @param limit maximum number of rows
+     * @return empresas with a greater id
+     */
+    @Transactional(readOnly = true)
+    List<EmpresaView> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Keyset page by id, descending; walks the primary key index
+     * @param id last id of the previous page (Long.MAX_VALUE for the first page)
+     * @param limit maximum number of rows
+     * @return empresas with a smaller id
+     */
+    @Transactional(readOnly = true)
+    List<EmpresaView> findByIdLessThanOrderByIdDesc(Long id, Limit limit);
+
+    /**
+     * First keyset page by nombre, ascending (index idx_empresa_nombre_id)
+     * @param limit maximum number of rows
+     * @return empresas ordered by nombre, then id
+     */
+    @Transactional(readOnly = true)
+    List<EmpresaView> findAllByOrderByNombreAscIdAsc(Limit limit);
+
+    /**
+     * First keyset page by nombre, descending (index idx_empresa_nombre_id)
+     * @param limit maximum number of rows
+     * @return empresas ordered by nombre, then id, both descending
+     */
+    @Transactional(readOnly = true)
+    List<EmpresaView> findAllByOrderByNombreDescIdDesc(Limit limit);
+
+    /**
+     * Keyset page by nombre after (nombre, id), ascending. The nombre >= bound
+     * lets the (nombre, id) index start at the cursor instead of the first row.
+     * @param nombre nombre of the last row of the previous page
+     * @param id id of the last row of the previous page
+     * @param limit maximum number of rows
+     * @return empresas ordered by nombre, then id
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT " + VIEW_COLUMNS + " FROM Empresa e " +
+           "WHERE e.nombre >= :nombre AND (e.nombre > :nombre OR e.id > :id) " +
+           "ORDER BY e.nombre ASC, e.id ASC")
+    List<EmpresaView> findPageByNombreAfter(@Param("nombre") String nombre, @Param("id") Long id, Limit limit);
+
+    /**
+     * Keyset page by nombre before (nombre, id), descending
+     * @param nombre nombre of the last row of the previous page
+     * @param id id of the last row of the previous page
+     * @param limit maximum number of rows
+     * @return empresas ordered by nombre, then id, both descending
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT " + VIEW_COLUMNS + " FROM Empresa e " +
+           "WHERE e.nombre <= :nombre AND (e.nombre < :nombre OR e.id < :id) " +
+           "ORDER BY e.nombre DESC, e.id DESC")
+    List<EmpresaView> findPageByNombreBefore(@Param("nombre") String nombre, @Param("id") Long id, Limit limit);
+
+    /**
+     * Every empresa ordered by id, fetched from the database in batches of 1000
+     * rows as the stream is consumed. Must be consumed inside a transaction and
+     * closed; rows are loaded read-only, without dirty-checking snapshots.
+     * @return stream over all empresas
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM Empresa e ORDER BY e.id")
+    Stream<Empresa> streamAllOrderedById();
 }
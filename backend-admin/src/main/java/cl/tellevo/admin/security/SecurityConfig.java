@@ -1,5 +1,6 @@
 package cl.tellevo.admin.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -48,6 +49,9 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Streamed responses finish on an ASYNC dispatch of a request that was already
+                // authorized; the JWT is not re-read there and stateless sessions keep no context
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/login").permitAll()
                 .requestMatchers("/api/health").permitAll()
                 .requestMatchers("/api/test").permitAll()
@@ -0,0 +1,272 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.config.EmpresaCacheConfig;
+import cl.tellevo.admin.dto.EmpresaResponse;
+import cl.tellevo.admin.dto.EmpresaView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded in-process cache of empresas in front of EmpresaRepository, keyed
+ * by id and by dominio, plus the full list and its serialized response body.
+ *
+ * Both maps are LRU (access-ordered LinkedHashMap) capped at max-entries and
+ * every value expires after ttl-ms, which only matters for rows changed
+ * outside this service. EmpresaService reads through it and invalidates the
+ * affected id, dominios and the list after every write.
+ *
+ * Loads race with writes: a reader may fetch a row just before a write
+ * commits. Every invalidation bumps a generation, and a loaded value is only
+ * stored if the generation is still the one read before going to the
+ * database, so a stale row never outlives the invalidation.
+ */
+@Component
+public class EmpresaCache {
+
+    private final EmpresaCacheConfig cacheConfig;
+    private final Map<Long, CachedEmpresa> byId;
+    private final Map<String, CachedEmpresa> byDominio;
+
+    // Guarded by this
+    private List<CachedEmpresa> all;
+    private long allLoadedAt;
+    private EmpresasListBody allBody;
+    private long allBodyLoadedAt;
+    private long generation;
+    private long idHits;
+    private long idMisses;
+    private long dominioHits;
+    private long dominioMisses;
+    private long listHits;
+    private long listMisses;
+    private long bodyHits;
+    private long bodyMisses;
+    private long invalidations;
+    private long evictions;
+
+    @Autowired
+    public EmpresaCache(EmpresaCacheConfig cacheConfig) {
+        this.cacheConfig = cacheConfig;
+        this.byId = lruMap();
+        this.byDominio = lruMap();
+    }
+
+    /**
+     * @return the cached empresa, or null if absent, expired or caching is disabled
+     */
+    public synchronized CachedEmpresa getById(Long id) {
+        CachedEmpresa cached = fresh(byId.get(id));
+        if (cached == null) {
+            idMisses++;
+        } else {
+            idHits++;
+        }
+        return cached;
+    }
+
+    /**
+     * @return the cached empresa, or null if absent, expired or caching is disabled
+     */
+    public synchronized CachedEmpresa getByDominio(String dominio) {
+        CachedEmpresa cached = fresh(byDominio.get(dominio));
+        if (cached == null) {
+            dominioMisses++;
+        } else {
+            dominioHits++;
+        }
+        return cached;
+    }
+
+    /**
+     * @return every empresa, or null if the list is not cached
+     */
+    public synchronized List<CachedEmpresa> getAll() {
+        if (all == null || expired(allLoadedAt)) {
+            listMisses++;
+            return null;
+        }
+        listHits++;
+        return all;
+    }
+
+    /**
+     * @return the serialized list, or null if it is not cached
+     */
+    public synchronized EmpresasListBody getAllBody() {
+        if (allBody == null || expired(allBodyLoadedAt)) {
+            bodyMisses++;
+            return null;
+        }
+        bodyHits++;
+        return allBody;
+    }
+
+    /**
+     * @return generation to pass to the put methods after loading from the database
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Cache an empresa loaded from the database, unless it was invalidated meanwhile
+     * @param loadedGeneration getGeneration() before the load
+     * @return the cached form of the empresa, stored or not
+     */
+    public synchronized CachedEmpresa put(long loadedGeneration, EmpresaView empresa) {
+        CachedEmpresa cached = new CachedEmpresa(empresa, System.currentTimeMillis());
+        if (cacheConfig.isEnabled() && loadedGeneration == generation) {
+            byId.put(cached.id, cached);
+            byDominio.put(cached.dominio, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Cache the full list loaded from the database, unless it was invalidated meanwhile
+     * @param loadedGeneration getGeneration() before the load
+     * @return the cached form of the list, stored or not
+     */
+    public synchronized List<CachedEmpresa> putAll(long loadedGeneration, List<EmpresaView> empresas) {
+        long now = System.currentTimeMillis();
+        List<CachedEmpresa> cached = new ArrayList<>(empresas.size());
+        for (EmpresaView empresa : empresas) {
+            cached.add(new CachedEmpresa(empresa, now));
+        }
+        cached = Collections.unmodifiableList(cached);
+        if (cacheConfig.isEnabled() && loadedGeneration == generation) {
+            all = cached;
+            allLoadedAt = now;
+        }
+        return cached;
+    }
+
+    /**
+     * Cache the serialized list, unless the empresas were invalidated meanwhile
+     * @param loadedGeneration getGeneration() before the list was read
+     * @return body, stored or not
+     */
+    public synchronized EmpresasListBody putAllBody(long loadedGeneration, EmpresasListBody body) {
+        if (cacheConfig.isEnabled() && loadedGeneration == generation) {
+            allBody = body;
+            allBodyLoadedAt = System.currentTimeMillis();
+        }
+        return body;
+    }
+
+    /**
+     * Drop an empresa and the full list after a write
+     * @param id the empresa written, or null for a new one
+     * @param dominios every dominio it had before and after the write
+     */
+    public synchronized void invalidate(Long id, String... dominios) {
+        generation++;
+        invalidations++;
+        all = null;
+        allBody = null;
+        if (id != null) {
+            byId.remove(id);
+        }
+        for (String dominio : dominios) {
+            if (dominio != null) {
+                byDominio.remove(dominio);
+            }
+        }
+    }
+
+    /**
+     * @return hit and miss counts per lookup, sizes and evictions
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", cacheConfig.isEnabled());
+        stats.put("maxEntries", cacheConfig.getMaxEntries());
+        stats.put("ttlMs", cacheConfig.getTtlMs());
+        stats.put("idEntries", byId.size());
+        stats.put("dominioEntries", byDominio.size());
+        stats.put("listCached", all != null);
+        stats.put("bodyCached", allBody != null);
+        stats.put("bodyBytes", allBody != null ? allBody.getJson().length : 0);
+        stats.put("bodyGzipBytes", allBody != null ? allBody.getGzip().length : 0);
+        stats.put("generation", generation);
+        stats.put("idHits", idHits);
+        stats.put("idMisses", idMisses);
+        stats.put("dominioHits", dominioHits);
+        stats.put("dominioMisses", dominioMisses);
+        stats.put("listHits", listHits);
+        stats.put("listMisses", listMisses);
+        stats.put("bodyHits", bodyHits);
+        stats.put("bodyMisses", bodyMisses);
+        long hits = idHits + dominioHits + listHits + bodyHits;
+        long lookups = hits + idMisses + dominioMisses + listMisses + bodyMisses;
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hits / lookups);
+        stats.put("invalidations", invalidations);
+        stats.put("evictions", evictions);
+        return stats;
+    }
+
+    private CachedEmpresa fresh(CachedEmpresa cached) {
+        return cached != null && !expired(cached.loadedAt) ? cached : null;
+    }
+
+    private boolean expired(long loadedAt) {
+        return System.currentTimeMillis() - loadedAt >= cacheConfig.getTtlMs();
+    }
+
+    private <K> Map<K, CachedEmpresa> lruMap() {
+        int maxEntries = Math.max(1, cacheConfig.getMaxEntries());
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedEmpresa> eldest) {
+                if (size() > maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Immutable copy of an empresa row
+     */
+    public static final class CachedEmpresa {
+        private final Long id;
+        private final String nombre;
+        private final String codigoPais;
+        private final String dominio;
+        private final String logoUrl;
+        private final long loadedAt;
+
+        private CachedEmpresa(EmpresaView empresa, long loadedAt) {
+            this.id = empresa.getId();
+            this.nombre = empresa.getNombre();
+            this.codigoPais = empresa.getCodigoPais();
+            this.dominio = empresa.getDominio();
+            this.logoUrl = empresa.getLogoUrl();
+            this.loadedAt = loadedAt;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getDominio() {
+            return dominio;
+        }
+
+        /**
+         * @return a new response DTO, so callers may modify it freely
+         */
+        public EmpresaResponse toResponse() {
+            return new EmpresaResponse(id, nombre, codigoPais, dominio, logoUrl);
+        }
+    }
+}
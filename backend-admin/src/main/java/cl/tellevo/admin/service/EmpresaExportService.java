@@ -0,0 +1,161 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.entity.Empresa;
+import cl.tellevo.admin.repository.EmpresaRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams the whole empresa table for reconciliation jobs.
+ *
+ * Rows come from a JPA Stream backed by a database cursor (fetch size 1000)
+ * and each one is written to the response and detached from the persistence
+ * context before the next is read, so memory use does not depend on the
+ * number of empresas. The export bypasses EmpresaCache on purpose: it must
+ * reflect the table, not the cache.
+ */
+@Service
+public class EmpresaExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmpresaExportService.class);
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    // Push bytes to the client regularly instead of only when buffers fill up
+    private static final int FLUSH_EVERY_ROWS = 1000;
+    private static final String CSV_HEADER = "id,nombre,codigo_pais,dominio,logo_url";
+
+    @Autowired
+    private EmpresaRepository empresaRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @param format requested format
+     * @return true if export supports it
+     */
+    public static boolean isSupportedFormat(String format) {
+        return FORMAT_NDJSON.equals(format) || FORMAT_CSV.equals(format);
+    }
+
+    /**
+     * Write every empresa, ordered by id, as NDJSON (one object per line) or
+     * CSV with a header row
+     * @param out response stream; not closed
+     * @param format ndjson or csv
+     * @return number of empresas written
+     * @throws IOException if the client goes away
+     */
+    @Transactional(readOnly = true)
+    public long exportar(OutputStream out, String format) throws IOException {
+        long start = System.nanoTime();
+        long rows;
+        try (Stream<Empresa> empresas = empresaRepository.streamAllOrderedById()) {
+            rows = FORMAT_CSV.equals(format)
+                ? writeCsv(out, empresas.iterator())
+                : writeNdjson(out, empresas.iterator());
+        }
+        logger.info("Exported {} empresas as {} in {} ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    private long writeNdjson(OutputStream out, Iterator<Empresa> empresas) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        // Separate root values with newlines instead of spaces
+        generator.setRootValueSeparator(new SerializedString("\n"));
+
+        long rows = 0;
+        while (empresas.hasNext()) {
+            Empresa empresa = empresas.next();
+            generator.writeStartObject();
+            generator.writeNumberField("id", empresa.getId());
+            generator.writeStringField("nombre", empresa.getNombre());
+            generator.writeStringField("codigoPais", empresa.getCodigoPais());
+            generator.writeStringField("dominio", empresa.getDominio());
+            generator.writeStringField("logoUrl", empresa.getLogoUrl());
+            generator.writeEndObject();
+            entityManager.detach(empresa);
+
+            if (++rows % FLUSH_EVERY_ROWS == 0) {
+                generator.flush();
+            }
+        }
+        if (rows > 0) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+        return rows;
+    }
+
+    private long writeCsv(OutputStream out, Iterator<Empresa> empresas) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+
+        long rows = 0;
+        while (empresas.hasNext()) {
+            Empresa empresa = empresas.next();
+            writer.write(String.valueOf(empresa.getId()));
+            writer.write(',');
+            writeCsvField(writer, empresa.getNombre());
+            writer.write(',');
+            writeCsvField(writer, empresa.getCodigoPais());
+            writer.write(',');
+            writeCsvField(writer, empresa.getDominio());
+            writer.write(',');
+            writeCsvField(writer, empresa.getLogoUrl());
+            writer.write("\r\n");
+            entityManager.detach(empresa);
+
+            if (++rows % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    /**
+     * RFC 4180: quote fields containing separators, quotes or line breaks, doubling inner quotes
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -1,17 +1,25 @@
 package cl.tellevo.admin.service;
 
+import cl.tellevo.admin.config.EmpresaListingConfig;
 import cl.tellevo.admin.dto.EmpresaRequest;
 import cl.tellevo.admin.dto.EmpresaResponse;
 import cl.tellevo.admin.dto.EmpresaUploadRequest;
+import cl.tellevo.admin.dto.EmpresaView;
+import cl.tellevo.admin.dto.EmpresasPage;
 import cl.tellevo.admin.entity.Empresa;
 import cl.tellevo.admin.repository.EmpresaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,26 +28,130 @@ public class EmpresaService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmpresaService.class);
 
+    private static final String CURSOR_PREFIX = "v1";
+    private static final String SORT_ID = "id";
+    private static final String SORT_NOMBRE = "nombre";
+    private static final String ORDER_ASC = "asc";
+    private static final String ORDER_DESC = "desc";
+
     @Autowired
     private EmpresaRepository empresaRepository;
 
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private EmpresaCache empresaCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmpresaListingConfig listingConfig;
+
     @Value("${app.images.url.path}")
     private String imagesBaseUrl;
 
 
 
     /**
-     * Get all empresas
+     * Get all empresas, from the cache when possible
      * @return List of EmpresaResponse
      */
     public List<EmpresaResponse> obtenerTodasEmpresas() {
         logger.debug("Retrieving all empresas");
 
-        List<Empresa> empresas = empresaRepository.findAll();
+        List<EmpresaCache.CachedEmpresa> empresas = empresaCache.getAll();
+        if (empresas == null) {
+            long generation = empresaCache.getGeneration();
+            empresas = empresaCache.putAll(generation, empresaRepository.findAllProjectedBy());
+        }
         List<EmpresaResponse> response = empresas.stream()
+            .map(EmpresaCache.CachedEmpresa::toResponse)
+            .collect(Collectors.toList());
+
+        logger.info("Found {} empresas", response.size());
+        return response;
+    }
+
+    /**
+     * Get all empresas as a ready-to-send JSON body, serialized and gzipped
+     * once per change to the empresas
+     * @return EmpresasListBody shared until the next empresa write
+     */
+    public EmpresasListBody obtenerTodasEmpresasSerializadas() {
+        EmpresasListBody body = empresaCache.getAllBody();
+        if (body != null) {
+            return body;
+        }
+
+        long generation = empresaCache.getGeneration();
+        List<EmpresaResponse> empresas = obtenerTodasEmpresas();
+        try {
+            body = EmpresasListBody.of(objectMapper.writeValueAsBytes(empresas), empresas.size());
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing empresas: {}", e.getMessage(), e);
+            throw new RuntimeException("Error al serializar las empresas", e);
+        }
+        logger.info("Serialized {} empresas ({} bytes, {} gzipped)",
+            empresas.size(), body.getJson().length, body.getGzip().length);
+        return empresaCache.putAllBody(generation, body);
+    }
+
+    /**
+     * Get one page of empresas using keyset pagination, so every page costs
+     * one index range scan regardless of how deep it is
+     * @param sort "id" or "nombre" (ties broken by id), default id
+     * @param order "asc" or "desc", default asc
+     * @param limit page size, default and cap from empresas.listing
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @return EmpresasPage with the empresas and the cursor of the next page
+     * @throws IllegalArgumentException if sort or order are unknown or the cursor belongs to another listing
+     */
+    public EmpresasPage obtenerEmpresasPaginadas(String sort, String order, Integer limit, String cursor) {
+        String sortKey = sort == null || sort.isBlank() ? SORT_ID : sort.trim().toLowerCase();
+        String orderKey = order == null || order.isBlank() ? ORDER_ASC : order.trim().toLowerCase();
+        if (!sortKey.equals(SORT_ID) && !sortKey.equals(SORT_NOMBRE)) {
+            throw new IllegalArgumentException("Orden inválido: " + sort + " (id o nombre)");
+        }
+        if (!orderKey.equals(ORDER_ASC) && !orderKey.equals(ORDER_DESC)) {
+            throw new IllegalArgumentException("Dirección inválida: " + order + " (asc o desc)");
+        }
+        int pageSize = limit == null ? listingConfig.getDefaultLimit() : limit;
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("limit debe ser mayor que 0");
+        }
+        pageSize = Math.min(pageSize, listingConfig.getMaxLimit());
+
+        logger.debug("Retrieving empresas page sort={} order={} limit={} cursor={}", sortKey, orderKey, pageSize, cursor);
+
+        // One extra row tells whether there is a next page without a count query
+        Limit fetch = Limit.of(pageSize + 1);
+        boolean ascending = orderKey.equals(ORDER_ASC);
+        String[] position = decodeCursor(cursor, sortKey, orderKey);
+        List<EmpresaView> rows;
+        if (sortKey.equals(SORT_ID)) {
+            if (ascending) {
+                rows = empresaRepository.findByIdGreaterThanOrderByIdAsc(
+                    position == null ? Long.MIN_VALUE : Long.parseLong(position[0]), fetch);
+            } else {
+                rows = empresaRepository.findByIdLessThanOrderByIdDesc(
+                    position == null ? Long.MAX_VALUE : Long.parseLong(position[0]), fetch);
+            }
+        } else if (position == null) {
+            rows = ascending
+                ? empresaRepository.findAllByOrderByNombreAscIdAsc(fetch)
+                : empresaRepository.findAllByOrderByNombreDescIdDesc(fetch);
+        } else {
+            Long lastId = Long.parseLong(position[0]);
+            rows = ascending
+                ? empresaRepository.findPageByNombreAfter(position[1], lastId, fetch)
+                : empresaRepository.findPageByNombreBefore(position[1], lastId, fetch);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<EmpresaView> page = hasMore ? rows.subList(0, pageSize) : rows;
+        List<EmpresaResponse> empresas = page.stream()
             .map(empresa -> new EmpresaResponse(
                 empresa.getId(),
                 empresa.getNombre(),
@@ -48,57 +160,55 @@ public class EmpresaService {
                 empresa.getLogoUrl()
             ))
             .collect(Collectors.toList());
+        String nextCursor = hasMore ? encodeCursor(sortKey, orderKey, page.get(page.size() - 1)) : null;
 
-        logger.info("Found {} empresas", response.size());
-        return response;
+        logger.info("Found {} empresas in page (hasMore={})", empresas.size(), hasMore);
+        return new EmpresasPage(empresas, sortKey, orderKey, pageSize, hasMore, nextCursor);
     }
 
     /**
-     * Get empresa by ID
+     * Get empresa by ID, from the cache when possible
      * @param id the empresa ID
      * @return EmpresaResponse if found
      */
     public EmpresaResponse obtenerEmpresaPorId(Long id) {
         logger.debug("Retrieving empresa with ID: {}", id);
 
-        Empresa empresa = empresaRepository.findById(id)
-            .orElseThrow(() -> {
-                logger.warn("Empresa with ID {} not found", id);
-                return new IllegalArgumentException("Empresa no encontrada");
-            });
+        EmpresaCache.CachedEmpresa empresa = empresaCache.getById(id);
+        if (empresa == null) {
+            long generation = empresaCache.getGeneration();
+            empresa = empresaCache.put(generation, empresaRepository.findProjectedById(id)
+                .orElseThrow(() -> {
+                    logger.warn("Empresa with ID {} not found", id);
+                    return new IllegalArgumentException("Empresa no encontrada");
+                }));
+        }
 
         logger.info("Empresa found with ID: {}", id);
-        return new EmpresaResponse(
-            empresa.getId(),
-            empresa.getNombre(),
-            empresa.getCodigoPais(),
-            empresa.getDominio(),
-            empresa.getLogoUrl()
-        );
+        return empresa.toResponse();
     }
 
     /**
-     * Get empresa by dominio
+     * Get empresa by dominio, from the cache when possible
      * @param dominio the empresa dominio
      * @return EmpresaResponse if found
      */
     public EmpresaResponse obtenerEmpresaPorDominio(String dominio) {
         logger.debug("Retrieving empresa with dominio: {}", dominio);
 
-        Empresa empresa = empresaRepository.findByDominio(dominio.trim())
-            .orElseThrow(() -> {
-                logger.warn("Empresa with dominio {} not found", dominio);
-                return new IllegalArgumentException("Empresa no encontrada");
-            });
+        String key = dominio.trim();
+        EmpresaCache.CachedEmpresa empresa = empresaCache.getByDominio(key);
+        if (empresa == null) {
+            long generation = empresaCache.getGeneration();
+            empresa = empresaCache.put(generation, empresaRepository.findProjectedByDominio(key)
+                .orElseThrow(() -> {
+                    logger.warn("Empresa with dominio {} not found", dominio);
+                    return new IllegalArgumentException("Empresa no encontrada");
+                }));
+        }
 
         logger.info("Empresa found with dominio: {}", dominio);
-        return new EmpresaResponse(
-            empresa.getId(),
-            empresa.getNombre(),
-            empresa.getCodigoPais(),
-            empresa.getDominio(),
-            empresa.getLogoUrl()
-        );
+        return empresa.toResponse();
     }
 
 
@@ -122,6 +232,7 @@ public class EmpresaService {
             fileStorageService.deleteEmpresaFiles(id);
 
             empresaRepository.deleteById(id);
+            empresaCache.invalidate(id, empresa.getDominio());
             logger.info("Empresa deleted successfully with ID: {}", id);
             return new EmpresaResponse("Empresa eliminada exitosamente");
         } catch (Exception e) {
@@ -153,6 +264,7 @@ public class EmpresaService {
             );
 
             Empresa savedEmpresa = empresaRepository.save(empresa);
+            empresaCache.invalidate(savedEmpresa.getId(), savedEmpresa.getDominio());
             logger.info("Empresa created successfully with ID: {}", savedEmpresa.getId());
 
             // Store the uploaded file and update the empresa
@@ -195,6 +307,7 @@ public class EmpresaService {
             throw new IllegalArgumentException("Ya existe una empresa con este dominio");
         }
 
+        String oldDominio = existingEmpresa.getDominio();
         try {
             // Store the uploaded file and update the empresa
             String fileUrl = storeEmpresaLogo(id, request.getLogoFile());
@@ -204,6 +317,7 @@ public class EmpresaService {
             existingEmpresa.setLogoUrl(fileUrl);
 
             Empresa updatedEmpresa = empresaRepository.save(existingEmpresa);
+            empresaCache.invalidate(id, oldDominio, newDominio);
             logger.info("Empresa updated successfully with ID: {}", id);
 
             return new EmpresaResponse(
@@ -240,8 +354,42 @@ public class EmpresaService {
 
         empresa.setLogoUrl(fileUrl);
         empresaRepository.save(empresa);
+        empresaCache.invalidate(empresaId, empresa.getDominio());
 
         logger.info("Logo stored and empresa updated for ID: {}", empresaId);
         return fileUrl;
     }
+
+    /**
+     * Cursor layout: v1:sort:order:id[:nombre], base64url so clients treat it as opaque.
+     * The nombre goes last because it may itself contain ':'.
+     */
+    private static String encodeCursor(String sort, String order, EmpresaView last) {
+        String position = CURSOR_PREFIX + ":" + sort + ":" + order + ":" + last.getId()
+            + (sort.equals(SORT_NOMBRE) ? ":" + last.getNombre() : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return {id} or {id, nombre} of the last row of the previous page, or null for the first page
+     */
+    private static String[] decodeCursor(String cursor, String sort, String order) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":", 5);
+            int expected = sort.equals(SORT_NOMBRE) ? 5 : 4;
+            if (parts.length != expected || !parts[0].equals(CURSOR_PREFIX)
+                    || !parts[1].equals(sort) || !parts[2].equals(order)) {
+                throw new IllegalArgumentException("Cursor inválido para este orden");
+            }
+            Long.parseLong(parts[3]);
+            return expected == 5 ? new String[] {parts[3], parts[4]} : new String[] {parts[3]};
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException and bad base64
+            throw new IllegalArgumentException("Cursor inválido para este orden", e);
+        }
+    }
 }
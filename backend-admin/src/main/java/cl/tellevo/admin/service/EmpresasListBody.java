@@ -0,0 +1,156 @@
+package cl.tellevo.admin.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The GET /api/empresas body serialized once: the JSON bytes, a gzip variant
+ * and a strong ETag derived from the content.
+ *
+ * Instances are shared by every request until the empresa cache is
+ * invalidated, so the arrays returned by the getters must not be modified.
+ * The gzip variant carries its own ETag ("...-gzip") as its bytes differ;
+ * If-None-Match compares ignoring the suffix, since both variants stand for
+ * the same list.
+ */
+public final class EmpresasListBody {
+
+    private static final String GZIP_SUFFIX = "-gzip";
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String hash;
+    private final int count;
+
+    private EmpresasListBody(byte[] json, byte[] gzip, String hash, int count) {
+        this.json = json;
+        this.gzip = gzip;
+        this.hash = hash;
+        this.count = count;
+    }
+
+    /**
+     * @param json the serialized list
+     * @param count number of empresas in it
+     * @return the body with its gzip variant and ETag computed
+     */
+    public static EmpresasListBody of(byte[] json, int count) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            String hash = HexFormat.of().formatHex(digest, 0, 16);
+            return new EmpresasListBody(json, gzip(json), hash, count);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @param gzipped whether the gzip variant is being sent
+     * @return the quoted strong ETag of that variant
+     */
+    public String getEtag(boolean gzipped) {
+        return "\"" + hash + (gzipped ? GZIP_SUFFIX : "") + "\"";
+    }
+
+    /**
+     * @param ifNoneMatch the If-None-Match request header, may be null
+     * @return true if the client already holds this list in either encoding
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String value = tag.trim();
+            if (value.equals("*")) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            if (value.endsWith(GZIP_SUFFIX)) {
+                value = value.substring(0, value.length() - GZIP_SUFFIX.length());
+            }
+            if (value.equals(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param acceptEncoding the Accept-Encoding request header, may be null
+     * @return true if gzip is listed without q=0, or gzip is not listed and * is listed without q=0
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        // An explicit gzip entry wins over *, so "gzip;q=0, *" refuses gzip
+        Boolean gzip = null;
+        Boolean any = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim();
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzip = isAcceptable(params);
+            } else if (coding.equals("*")) {
+                any = isAcceptable(params);
+            }
+        }
+        if (gzip != null) {
+            return gzip;
+        }
+        return any != null && any;
+    }
+
+    private static boolean isAcceptable(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=") || param.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        // Compressed once per list change, so spend the CPU on the best ratio
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzipStream.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
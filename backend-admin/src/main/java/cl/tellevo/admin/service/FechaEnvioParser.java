@@ -0,0 +1,199 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.config.VentasAggregationConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.zone.ZoneRules;
+import java.util.List;
+
+/**
+ * Turns VentasResponse.fecha_envio, an ISO local date-time without zone
+ * ("2025-03-14T09:26:53" or with a space instead of the T), into epoch
+ * milliseconds in the configured ventas zone.
+ *
+ * The fixed layout yyyy-MM-dd[T ]HH:mm[:ss[.fraction]] is read digit by digit
+ * without allocating; anything else goes through LocalDateTime.parse, so
+ * both paths accept the same inputs. The zone offset is cached per local
+ * hour and only looked up again when an hour without a transition changes.
+ */
+@Component
+public class FechaEnvioParser {
+
+    /** Returned for missing or unparseable fechas */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    // Local millis result meaning "not the fixed layout, use the general parser"
+    private static final long NOT_FIXED_LAYOUT = Long.MAX_VALUE;
+    private static final int SECONDS_PER_HOUR = 3600;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    // Offset of zones without transitions, Integer.MIN_VALUE otherwise
+    private final int fixedOffsetSeconds;
+    private volatile HourOffset lastHour = new HourOffset(Long.MIN_VALUE, 0);
+
+    @Autowired
+    public FechaEnvioParser(VentasAggregationConfig aggregationConfig) {
+        this.zone = ZoneId.of(aggregationConfig.getZone());
+        this.rules = zone.getRules();
+        this.fixedOffsetSeconds = rules.isFixedOffset()
+            ? rules.getOffset(Instant.EPOCH).getTotalSeconds() : Integer.MIN_VALUE;
+    }
+
+    /**
+     * @param fechaEnvio the venta's fecha_envio
+     * @return epoch milliseconds, or UNKNOWN if it cannot be parsed
+     */
+    public long toEpochMillis(String fechaEnvio) {
+        if (fechaEnvio == null || fechaEnvio.isEmpty()) {
+            return UNKNOWN;
+        }
+
+        long localMillis = parseLocalMillis(fechaEnvio);
+        if (localMillis == UNKNOWN) {
+            return UNKNOWN;
+        }
+        if (localMillis != NOT_FIXED_LAYOUT) {
+            int offsetSeconds = offsetSeconds(Math.floorDiv(localMillis, 1000L));
+            if (offsetSeconds != Integer.MIN_VALUE) {
+                return localMillis - offsetSeconds * 1000L;
+            }
+        }
+
+        // Other layouts, and local times in an hour with an offset transition
+        try {
+            return LocalDateTime.parse(fechaEnvio.replace(' ', 'T')).atZone(zone).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return UNKNOWN;
+        }
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * @return milliseconds since the epoch of the local date-time read as UTC,
+     *         UNKNOWN for out of range fields, or NOT_FIXED_LAYOUT
+     */
+    private static long parseLocalMillis(String s) {
+        int length = s.length();
+        if (length < 16 || s.charAt(4) != '-' || s.charAt(7) != '-'
+                || (s.charAt(10) != 'T' && s.charAt(10) != ' ') || s.charAt(13) != ':') {
+            return NOT_FIXED_LAYOUT;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = 0;
+        int millis = 0;
+        if (length > 16) {
+            if (length < 19 || s.charAt(16) != ':') {
+                return NOT_FIXED_LAYOUT;
+            }
+            second = digits(s, 17, 2);
+            if (length > 19) {
+                // Up to nanoseconds, only the first three digits matter
+                if (s.charAt(19) != '.' || length == 20 || length > 29) {
+                    return NOT_FIXED_LAYOUT;
+                }
+                int fraction = digits(s, 20, length - 20);
+                if (fraction < 0) {
+                    return NOT_FIXED_LAYOUT;
+                }
+                millis = digits(s, 20, Math.min(3, length - 20));
+                for (int i = length - 20; i < 3; i++) {
+                    millis *= 10;
+                }
+            }
+        }
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return NOT_FIXED_LAYOUT;
+        }
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            return UNKNOWN;
+        }
+
+        long seconds = epochDay(year, month, day) * 86400L + hour * 3600L + minute * 60L + second;
+        return seconds * 1000L + millis;
+    }
+
+    /**
+     * @return the non-negative value of count decimal digits at offset, or -1 if any is not a digit
+     */
+    private static int digits(String s, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date (Howard Hinnant's days_from_civil)
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400L);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * @param localSecond local date-time in seconds since the epoch, read as UTC
+     * @return the zone offset in seconds, or Integer.MIN_VALUE if the hour has a transition
+     */
+    private int offsetSeconds(long localSecond) {
+        if (fixedOffsetSeconds != Integer.MIN_VALUE) {
+            return fixedOffsetSeconds;
+        }
+        long hour = Math.floorDiv(localSecond, (long) SECONDS_PER_HOUR);
+        HourOffset cached = lastHour;
+        if (cached.hour == hour) {
+            return cached.offsetSeconds;
+        }
+
+        LocalDateTime start = LocalDateTime.ofEpochSecond(hour * SECONDS_PER_HOUR, 0, ZoneOffset.UTC);
+        List<ZoneOffset> atStart = rules.getValidOffsets(start);
+        List<ZoneOffset> atEnd = rules.getValidOffsets(start.plusSeconds(SECONDS_PER_HOUR - 1));
+        if (atStart.size() != 1 || !atStart.equals(atEnd)) {
+            return Integer.MIN_VALUE;
+        }
+        cached = new HourOffset(hour, atStart.get(0).getTotalSeconds());
+        lastHour = cached;
+        return cached.offsetSeconds;
+    }
+
+    private static final class HourOffset {
+        private final long hour;
+        private final int offsetSeconds;
+
+        private HourOffset(long hour, int offsetSeconds) {
+            this.hour = hour;
+            this.offsetSeconds = offsetSeconds;
+        }
+    }
+}
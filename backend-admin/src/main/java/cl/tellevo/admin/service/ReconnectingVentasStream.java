@@ -0,0 +1,193 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.config.GrpcVentasConfig;
+import cl.tellevo.admin.grpc.ventas.VentasRequest;
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A StreamVentas subscription that survives upstream restarts.
+ *
+ * When a call fails or is completed by the server, a new one is started after
+ * a jittered exponential backoff. The downstream observer only ever sees
+ * onNext; state changes go to the VentasStreamStateListener instead, so
+ * callers can keep their own clients connected while the stream is degraded.
+ * The backoff resets once a new call delivers a venta or stays up for the
+ * configured stable period.
+ */
+public class ReconnectingVentasStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconnectingVentasStream.class);
+
+    private final VentasGrpcClient client;
+    private final GrpcVentasConfig config;
+    private final ScheduledExecutorService scheduler;
+    private final StreamObserver<VentasResponse> downstream;
+    private final VentasStreamStateListener stateListener;
+
+    // Written under this; read without the lock to drop data from replaced calls
+    private volatile AttemptObserver currentAttempt;
+
+    // Guarded by this
+    private VentasSubscription currentSubscription;
+    private ScheduledFuture<?> pendingRetry;
+    private int failedAttempts;
+    private boolean degraded;
+    private boolean cancelled;
+
+    ReconnectingVentasStream(VentasGrpcClient client, GrpcVentasConfig config, ScheduledExecutorService scheduler,
+                             StreamObserver<VentasResponse> downstream, VentasStreamStateListener stateListener) {
+        this.client = client;
+        this.config = config;
+        this.scheduler = scheduler;
+        this.downstream = downstream;
+        this.stateListener = stateListener;
+    }
+
+    synchronized void start() {
+        connect();
+    }
+
+    /**
+     * Stop reconnecting and cancel the current call
+     */
+    public void cancel() {
+        VentasSubscription subscription;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            subscription = currentSubscription;
+            currentSubscription = null;
+            currentAttempt = null;
+            if (pendingRetry != null) {
+                pendingRetry.cancel(false);
+                pendingRetry = null;
+            }
+        }
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    public synchronized boolean isDegraded() {
+        return degraded;
+    }
+
+    private void connect() {
+        pendingRetry = null;
+        AttemptObserver attempt = new AttemptObserver();
+        currentAttempt = attempt;
+        // streamVentas may fail synchronously; the attempt then schedules its own retry
+        VentasSubscription subscription = client.streamVentas(attempt);
+        if (currentAttempt == attempt) {
+            currentSubscription = subscription;
+            scheduler.schedule(() -> markStable(attempt), config.getReconnectStableAfterMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void markStable(AttemptObserver attempt) {
+        boolean restored;
+        synchronized (this) {
+            if (cancelled || currentAttempt != attempt) {
+                return;
+            }
+            failedAttempts = 0;
+            restored = degraded;
+            degraded = false;
+        }
+        if (restored) {
+            logger.info("gRPC ventas stream restored");
+            stateListener.onRestored();
+        }
+    }
+
+    private void attemptEnded(AttemptObserver attempt, Throwable cause) {
+        int attemptNumber;
+        long delay;
+        synchronized (this) {
+            if (cancelled || currentAttempt != attempt) {
+                return;
+            }
+            currentAttempt = null;
+            currentSubscription = null;
+            failedAttempts++;
+            degraded = true;
+            attemptNumber = failedAttempts;
+            delay = nextBackoffMs(failedAttempts);
+            pendingRetry = scheduler.schedule(this::retry, delay, TimeUnit.MILLISECONDS);
+        }
+
+        logger.warn("gRPC ventas stream ended ({}), reconnect attempt {} in {} ms",
+            cause != null ? cause.getMessage() : "completed by server", attemptNumber, delay);
+        stateListener.onDegraded(attemptNumber, delay, cause);
+    }
+
+    private synchronized void retry() {
+        if (!cancelled) {
+            connect();
+        }
+    }
+
+    /**
+     * Exponential backoff with jitter: the delay is drawn uniformly from
+     * [base * (1 - jitter), base], so reconnecting instances spread out
+     * instead of hitting the ventas service in lockstep.
+     */
+    private long nextBackoffMs(int attempt) {
+        double base = config.getReconnectInitialBackoffMs() * Math.pow(config.getReconnectMultiplier(), attempt - 1);
+        base = Math.min(base, config.getReconnectMaxBackoffMs());
+        double jitter = Math.max(0.0, Math.min(1.0, config.getReconnectJitter()));
+        double min = base * (1.0 - jitter);
+        return (long) (min + ThreadLocalRandom.current().nextDouble() * (base - min));
+    }
+
+    /**
+     * Observer for one call. Callbacks from calls that have been replaced or
+     * cancelled are ignored.
+     */
+    private final class AttemptObserver implements ClientResponseObserver<VentasRequest, VentasResponse> {
+
+        private volatile boolean delivering;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void beforeStart(ClientCallStreamObserver<VentasRequest> requestStream) {
+            if (downstream instanceof ClientResponseObserver<?, ?> responseObserver) {
+                ((ClientResponseObserver<VentasRequest, VentasResponse>) responseObserver).beforeStart(requestStream);
+            }
+        }
+
+        @Override
+        public void onNext(VentasResponse venta) {
+            if (currentAttempt != this) {
+                return;
+            }
+            if (!delivering) {
+                delivering = true;
+                markStable(this);
+            }
+            downstream.onNext(venta);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            attemptEnded(this, t);
+        }
+
+        @Override
+        public void onCompleted() {
+            attemptEnded(this, null);
+        }
+    }
+}
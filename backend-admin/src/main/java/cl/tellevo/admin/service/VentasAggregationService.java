@@ -0,0 +1,138 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.aggregation.VentasWindows;
+import cl.tellevo.admin.config.VentasAggregationConfig;
+import cl.tellevo.admin.dto.VentasWindowCounts;
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding-window venta counts kept in memory from the live ventas stream.
+ *
+ * Every venta is counted once, at its fecha_envio as released by the
+ * VentasReorderBuffer, into the global windows and into the windows of its
+ * empresa. Reads only sum a few dozen counters, so the
+ * dashboard overview never touches the database.
+ */
+@Service
+public class VentasAggregationService implements VentasEventTimeListener, VentasSnapshotParticipant {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentasAggregationService.class);
+
+    // Ventas of empresas beyond the tracked limit are counted here
+    static final String OTRAS_EMPRESAS = "(otras)";
+
+    private final VentasAggregationConfig aggregationConfig;
+    private volatile VentasWindows global = new VentasWindows();
+    private volatile Map<String, VentasWindows> porEmpresa = new ConcurrentHashMap<>();
+    private volatile long startedAt = System.currentTimeMillis();
+
+    @Autowired
+    public VentasAggregationService(VentasAggregationConfig aggregationConfig) {
+        this.aggregationConfig = aggregationConfig;
+    }
+
+    @Override
+    public void onVenta(VentasResponse venta, long eventTime) {
+        global.record(eventTime);
+        windowsFor(venta.getNombreEmpresa()).record(eventTime);
+    }
+
+    /**
+     * @return venta counts over the last minute, hour and day across all empresas
+     */
+    public VentasWindowCounts getTotales() {
+        return counts(null, global, System.currentTimeMillis());
+    }
+
+    /**
+     * @return venta counts per empresa, busiest over the last day first
+     */
+    public List<VentasWindowCounts> getPorEmpresa() {
+        long now = System.currentTimeMillis();
+        List<VentasWindowCounts> result = new ArrayList<>(porEmpresa.size());
+        porEmpresa.forEach((empresa, windows) -> result.add(counts(empresa, windows, now)));
+        result.sort(Comparator.comparingLong(VentasWindowCounts::getUltimoDia).reversed()
+            .thenComparing(VentasWindowCounts::getNombreEmpresa));
+        return result;
+    }
+
+    /**
+     * @return epoch milliseconds since which ventas have been counted
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return "windows";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        out.writeLong(startedAt);
+        global.writeTo(out);
+        // Copy first: empresas may be added while writing, and the count must match the entries
+        List<Map.Entry<String, VentasWindows>> empresas = List.copyOf(porEmpresa.entrySet());
+        out.writeInt(empresas.size());
+        for (Map.Entry<String, VentasWindows> entry : empresas) {
+            out.writeUTF(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(DataInput in) throws IOException {
+        long storedStartedAt = in.readLong();
+        VentasWindows storedGlobal = new VentasWindows();
+        storedGlobal.readFrom(in);
+        int count = in.readInt();
+        Map<String, VentasWindows> storedPorEmpresa = new ConcurrentHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String empresa = in.readUTF();
+            VentasWindows windows = new VentasWindows();
+            windows.readFrom(in);
+            storedPorEmpresa.put(empresa, windows);
+        }
+
+        startedAt = storedStartedAt;
+        global = storedGlobal;
+        porEmpresa = storedPorEmpresa;
+    }
+
+    private VentasWindows windowsFor(String empresa) {
+        VentasWindows windows = porEmpresa.get(empresa);
+        if (windows != null) {
+            return windows;
+        }
+        if (porEmpresa.size() >= aggregationConfig.getMaxEmpresas()) {
+            logger.debug("Empresa limit {} reached, counting '{}' under {}",
+                aggregationConfig.getMaxEmpresas(), empresa, OTRAS_EMPRESAS);
+            return porEmpresa.computeIfAbsent(OTRAS_EMPRESAS, key -> new VentasWindows());
+        }
+        return porEmpresa.computeIfAbsent(empresa, key -> new VentasWindows());
+    }
+
+    private static VentasWindowCounts counts(String empresa, VentasWindows windows, long now) {
+        return new VentasWindowCounts(
+            empresa,
+            windows.lastMinute(now),
+            windows.lastHour(now),
+            windows.lastDay(now),
+            windows.total()
+        );
+    }
+}
@@ -0,0 +1,190 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.aggregation.DailyHyperLogLogs;
+import cl.tellevo.admin.aggregation.HyperLogLog;
+import cl.tellevo.admin.config.VentasAggregationConfig;
+import cl.tellevo.admin.dto.VentasCompradoresUnicos;
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Distinct buyers (VentasResponse.email) per empresa and per day, estimated
+ * with HyperLogLog instead of exact sets.
+ *
+ * Every empresa gets a DailyHyperLogLogs ring, plus one for all empresas
+ * together. Ranges of days are answered by merging the daily sketches, so a
+ * buyer active on several days is still counted once. A venta counts on the
+ * day of its fecha_envio, not the day it arrived.
+ */
+@Service
+public class VentasCompradoresService implements VentasEventTimeListener, VentasSnapshotParticipant {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentasCompradoresService.class);
+
+    private final VentasAggregationConfig aggregationConfig;
+    private final ZoneId zone;
+    private volatile DailyHyperLogLogs todas;
+    private volatile Map<String, DailyHyperLogLogs> porEmpresa = new ConcurrentHashMap<>();
+    private volatile CurrentDay currentDay;
+
+    @Autowired
+    public VentasCompradoresService(VentasAggregationConfig aggregationConfig) {
+        this.aggregationConfig = aggregationConfig;
+        this.zone = ZoneId.of(aggregationConfig.getZone());
+        this.todas = newDailySketches();
+        this.currentDay = currentDay(System.currentTimeMillis());
+    }
+
+    @Override
+    public void onVenta(VentasResponse venta, long eventTime) {
+        long epochDay = epochDay(eventTime);
+        long hash = hashEmail(venta.getEmail());
+        todas.add(epochDay, hash);
+
+        DailyHyperLogLogs sketches = sketchesFor(venta.getNombreEmpresa());
+        if (sketches != null) {
+            sketches.add(epochDay, hash);
+        }
+    }
+
+    /**
+     * Estimate distinct buyers over a range of days
+     * @param empresa nombre_empresa, or null for all empresas
+     * @param desde first day (inclusive)
+     * @param hasta last day (inclusive)
+     * @return the estimate; 0 for empresas or days that are not tracked
+     * @throws IllegalArgumentException if desde is after hasta
+     */
+    public VentasCompradoresUnicos getCompradoresUnicos(String empresa, LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("desde debe ser anterior o igual a hasta");
+        }
+
+        HyperLogLog merged = new HyperLogLog(aggregationConfig.getHllPrecision());
+        DailyHyperLogLogs sketches = empresa == null ? todas : porEmpresa.get(empresa);
+        if (sketches != null) {
+            sketches.mergeInto(merged, desde.toEpochDay(), hasta.toEpochDay());
+        }
+        return new VentasCompradoresUnicos(empresa, desde, hasta, merged.estimate(), merged.getStandardError());
+    }
+
+    /**
+     * @return today in the configured zone
+     */
+    public LocalDate today() {
+        return LocalDate.ofEpochDay(epochDay(System.currentTimeMillis()));
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return "compradores";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        todas.writeTo(out);
+        // Copy first: empresas may be added while writing, and the count must match the entries
+        List<Map.Entry<String, DailyHyperLogLogs>> empresas = List.copyOf(porEmpresa.entrySet());
+        out.writeInt(empresas.size());
+        for (Map.Entry<String, DailyHyperLogLogs> entry : empresas) {
+            out.writeUTF(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(DataInput in) throws IOException {
+        DailyHyperLogLogs storedTodas = newDailySketches();
+        storedTodas.readFrom(in);
+        int count = in.readInt();
+        Map<String, DailyHyperLogLogs> storedPorEmpresa = new ConcurrentHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String empresa = in.readUTF();
+            DailyHyperLogLogs sketches = newDailySketches();
+            sketches.readFrom(in);
+            storedPorEmpresa.put(empresa, sketches);
+        }
+
+        todas = storedTodas;
+        porEmpresa = storedPorEmpresa;
+    }
+
+    private DailyHyperLogLogs sketchesFor(String empresa) {
+        DailyHyperLogLogs sketches = porEmpresa.get(empresa);
+        if (sketches != null) {
+            return sketches;
+        }
+        if (porEmpresa.size() >= aggregationConfig.getHllMaxEmpresas()) {
+            logger.debug("Distinct buyer sketch limit {} reached, '{}' only counts towards the total",
+                aggregationConfig.getHllMaxEmpresas(), empresa);
+            return null;
+        }
+        return porEmpresa.computeIfAbsent(empresa, key -> newDailySketches());
+    }
+
+    private DailyHyperLogLogs newDailySketches() {
+        return new DailyHyperLogLogs(aggregationConfig.getHllPrecision(), aggregationConfig.getHllRetentionDays());
+    }
+
+    private long epochDay(long timeMillis) {
+        CurrentDay day = currentDay;
+        if (timeMillis < day.startMillis || timeMillis >= day.endMillis) {
+            // Only resolved through the zone rules when the day changes
+            day = currentDay(timeMillis);
+            currentDay = day;
+        }
+        return day.epochDay;
+    }
+
+    private CurrentDay currentDay(long timeMillis) {
+        LocalDate date = Instant.ofEpochMilli(timeMillis).atZone(zone).toLocalDate();
+        return new CurrentDay(
+            date.toEpochDay(),
+            date.atStartOfDay(zone).toInstant().toEpochMilli(),
+            date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli()
+        );
+    }
+
+    /**
+     * Case-insensitive 64-bit hash: FNV-1a over the lower-cased chars, then the
+     * murmur3 finalizer to spread the bits HyperLogLog relies on
+     */
+    private static long hashEmail(String email) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            h ^= Character.toLowerCase(email.charAt(i));
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class CurrentDay {
+        private final long epochDay;
+        private final long startMillis;
+        private final long endMillis;
+
+        private CurrentDay(long epochDay, long startMillis, long endMillis) {
+            this.epochDay = epochDay;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+
+/**
+ * Consumer of every venta received from the shared StreamVentas call.
+ *
+ * Listener beans are picked up by the VentasBroadcastHub, which keeps the
+ * upstream call open while any listener exists, even with no WebSocket
+ * sessions connected. Callbacks run on the gRPC delivery thread before the
+ * venta is fanned out, so implementations must be fast and must not block.
+ */
+public interface VentasEventListener {
+
+    /**
+     * @param venta the venta just received from upstream
+     */
+    void onVenta(VentasResponse venta);
+}
@@ -0,0 +1,21 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+
+/**
+ * Consumer of ventas in fecha_envio order.
+ *
+ * The VentasReorderBuffer holds each venta until the watermark passes its
+ * event time and then calls these listeners in event-time order, either on
+ * the gRPC delivery thread or on the buffer's idle flush thread, never both
+ * at once. Ventas arriving behind the watermark are counted as late and do
+ * not reach these listeners.
+ */
+public interface VentasEventTimeListener {
+
+    /**
+     * @param venta the venta being released
+     * @param eventTime its fecha_envio in epoch milliseconds
+     */
+    void onVenta(VentasResponse venta, long eventTime);
+}
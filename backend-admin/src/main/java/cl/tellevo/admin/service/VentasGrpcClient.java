@@ -4,14 +4,25 @@ import cl.tellevo.admin.config.GrpcVentasConfig;
 import cl.tellevo.admin.grpc.ventas.VentasServiceGrpc;
 import cl.tellevo.admin.grpc.ventas.VentasRequest;
 import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import io.grpc.Context;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 @Service
 public class VentasGrpcClient {
 
@@ -19,10 +30,21 @@ public class VentasGrpcClient {
 
     private final GrpcVentasConfig config;
     private ManagedChannel channel;
+    private final ScheduledExecutorService reconnectScheduler;
+
+    private final Set<VentasSubscription> liveSubscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong startedCalls = new AtomicLong();
+    private final AtomicLong cancelledCalls = new AtomicLong();
+    private final AtomicInteger orphanedCalls = new AtomicInteger();
 
     @Autowired
     public VentasGrpcClient(GrpcVentasConfig config) {
         this.config = config;
+        this.reconnectScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ventas-grpc-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
         initializeChannel();
     }
 
@@ -42,16 +64,20 @@ public class VentasGrpcClient {
     /**
      * Start streaming ventas data to the provided observer
      * @param responseObserver The observer to receive venta messages
+     * @return handle to cancel the call; the caller must cancel it once it stops listening
      */
-    public void streamVentas(StreamObserver<VentasResponse> responseObserver) {
+    public VentasSubscription streamVentas(StreamObserver<VentasResponse> responseObserver) {
+        VentasSubscription subscription = new VentasSubscription(this, Context.current().withCancellation());
+
         if (channel == null || channel.isShutdown()) {
             logger.warn("gRPC channel is not available, reinitializing...");
             try {
                 initializeChannel();
             } catch (Exception e) {
                 logger.error("Failed to reinitialize gRPC channel to {}:{}", config.getHost(), config.getPort(), e);
+                subscription.markTerminated();
                 responseObserver.onError(new RuntimeException("gRPC server not available", e));
-                return;
+                return subscription;
             }
         }
 
@@ -62,13 +88,17 @@ public class VentasGrpcClient {
             // Create the request (empty as per the proto definition)
             VentasRequest request = VentasRequest.newBuilder().build();
 
-            // Make the streaming call
+            // Make the streaming call inside the subscription's context so cancel() reaches it
             logger.info("🚀 STARTING gRPC call to {}:{} with empty request", config.getHost(), config.getPort());
-            stub.streamVentas(request, responseObserver);
+            liveSubscriptions.add(subscription);
+            startedCalls.incrementAndGet();
+            subscription.getContext().run(() ->
+                stub.streamVentas(request, new TrackingObserver(subscription, responseObserver)));
             logger.info("📡 gRPC call initiated, waiting for responses...");
 
         } catch (Exception e) {
             logger.error("Failed to start gRPC ventas stream to {}:{}", config.getHost(), config.getPort(), e);
+            subscription.markTerminated();
             // Try to provide some fallback data or clear error message
             try {
                 // For development, you could simulate empty stream
@@ -79,12 +109,67 @@ public class VentasGrpcClient {
                 responseObserver.onError(e);
             }
         }
+        return subscription;
     }
 
     /**
-     * Shutdown the gRPC channel
+     * Stream ventas and keep resubscribing with jittered exponential backoff
+     * whenever the call fails or the server completes it
+     * @param responseObserver receives ventas from whichever call is current; its onError/onCompleted are never called
+     * @param stateListener notified when the stream degrades and when it is restored
+     * @return handle to stop the stream
      */
+    public ReconnectingVentasStream streamVentasReconnecting(StreamObserver<VentasResponse> responseObserver,
+                                                            VentasStreamStateListener stateListener) {
+        ReconnectingVentasStream stream = new ReconnectingVentasStream(
+            this, config, reconnectScheduler, responseObserver, stateListener);
+        stream.start();
+        return stream;
+    }
+
+    void onCancelRequested() {
+        cancelledCalls.incrementAndGet();
+        orphanedCalls.incrementAndGet();
+    }
+
+    void onTerminated(VentasSubscription subscription, boolean wasOrphaned) {
+        liveSubscriptions.remove(subscription);
+        if (wasOrphaned) {
+            orphanedCalls.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return calls started on the channel that have not terminated yet
+     */
+    public int getActiveCallCount() {
+        return liveSubscriptions.size();
+    }
+
+    /**
+     * @return calls that were cancelled but whose termination has not been observed yet
+     */
+    public int getOrphanedCallCount() {
+        return orphanedCalls.get();
+    }
+
+    public long getStartedCallCount() {
+        return startedCalls.get();
+    }
+
+    public long getCancelledCallCount() {
+        return cancelledCalls.get();
+    }
+
+    /**
+     * Cancel every live call and shutdown the gRPC channel
+     */
+    @PreDestroy
     public void shutdown() {
+        reconnectScheduler.shutdownNow();
+        for (VentasSubscription subscription : liveSubscriptions) {
+            subscription.cancel();
+        }
         if (channel != null && !channel.isShutdown()) {
             channel.shutdown();
             logger.info("gRPC channel shutdown");
@@ -107,4 +192,45 @@ public class VentasGrpcClient {
         return String.format("gRPC connection to %s:%d (healthy: %s)",
             config.getHost(), config.getPort(), isHealthy());
     }
+
+    /**
+     * Marks the subscription terminated before handing the terminal callback
+     * to the caller's observer. Flow-control hooks are forwarded when the
+     * caller's observer asks for them.
+     */
+    private static final class TrackingObserver implements ClientResponseObserver<VentasRequest, VentasResponse> {
+
+        private final VentasSubscription subscription;
+        private final StreamObserver<VentasResponse> delegate;
+
+        TrackingObserver(VentasSubscription subscription, StreamObserver<VentasResponse> delegate) {
+            this.subscription = subscription;
+            this.delegate = delegate;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void beforeStart(ClientCallStreamObserver<VentasRequest> requestStream) {
+            if (delegate instanceof ClientResponseObserver<?, ?> responseObserver) {
+                ((ClientResponseObserver<VentasRequest, VentasResponse>) responseObserver).beforeStart(requestStream);
+            }
+        }
+
+        @Override
+        public void onNext(VentasResponse value) {
+            delegate.onNext(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            subscription.markTerminated();
+            delegate.onError(t);
+        }
+
+        @Override
+        public void onCompleted() {
+            subscription.markTerminated();
+            delegate.onCompleted();
+        }
+    }
 }
@@ -0,0 +1,155 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.eventlog.VentasEventLog;
+import cl.tellevo.admin.eventlog.VentasLogQuery;
+import cl.tellevo.admin.websocket.VentaFrameEncoder;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Reads ventas back from the local VentasEventLog as NDJSON pages.
+ *
+ * Each page is written straight from the log scan to the response stream:
+ * one venta object per line, in the same shape as the /ws/ventas frames,
+ * followed by {"type":"page","count":N,"hasMore":...,"nextCursor":"..."}.
+ * The cursor is an opaque token for the log position to continue from; the
+ * client repeats the same filters with it to get the next page.
+ */
+@Service
+public class VentasHistoryService {
+
+    private static final String CURSOR_PREFIX = "v1:";
+    private static final SerializedString FIELD_TYPE = new SerializedString("type");
+    private static final SerializedString FIELD_COUNT = new SerializedString("count");
+    private static final SerializedString FIELD_HAS_MORE = new SerializedString("hasMore");
+    private static final SerializedString FIELD_NEXT_CURSOR = new SerializedString("nextCursor");
+
+    private final VentasEventLog eventLog;
+    private final VentaFrameEncoder frameEncoder;
+    private final FechaEnvioParser fechaParser;
+
+    @Autowired
+    public VentasHistoryService(VentasEventLog eventLog, VentaFrameEncoder frameEncoder, FechaEnvioParser fechaParser) {
+        this.eventLog = eventLog;
+        this.frameEncoder = frameEncoder;
+        this.fechaParser = fechaParser;
+    }
+
+    /**
+     * Build a log query from request parameters
+     * @param from earliest fecha_envio, ISO date or date-time in the ventas zone (null for no bound)
+     * @param to latest fecha_envio, ISO date (whole day included) or date-time (null for no bound)
+     * @param empresa nombre_empresa, or null for all
+     * @throws IllegalArgumentException if a fecha cannot be parsed or the range is inverted
+     */
+    public VentasLogQuery buildQuery(String from, String to, String empresa) {
+        long fechaFrom = from == null ? Long.MIN_VALUE : parseBound(from, false);
+        long fechaTo = to == null ? Long.MAX_VALUE : parseBound(to, true);
+        if (fechaFrom > fechaTo) {
+            throw new IllegalArgumentException("from debe ser anterior a to");
+        }
+        return new VentasLogQuery(Integer.MIN_VALUE, Integer.MAX_VALUE, fechaFrom, fechaTo, empresa);
+    }
+
+    /**
+     * @param cursor token from a previous page, or null to start at the oldest retained venta
+     * @return log sequence to start reading at
+     * @throws IllegalArgumentException if the cursor is not one we issued
+     */
+    public long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return eventLog.getFirstSequence();
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            long sequence = Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+            if (sequence < 0) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return sequence;
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException and bad base64
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+
+    /**
+     * Write one NDJSON page
+     * @param out response stream; not closed
+     * @param query filter built with buildQuery
+     * @param fromSequence position from decodeCursor
+     * @param limit maximum ventas in the page
+     */
+    public void writePage(OutputStream out, VentasLogQuery query, long fromSequence, int limit) throws IOException {
+        JsonGenerator generator = frameEncoder.getJsonFactory().createGenerator(out, JsonEncoding.UTF8);
+        // Separate root values with newlines instead of spaces
+        generator.setRootValueSeparator(new SerializedString("\n"));
+
+        int[] count = {0};
+        long next;
+        try {
+            next = eventLog.scan(fromSequence, query, limit, (sequence, venta) -> {
+                try {
+                    frameEncoder.write(venta, generator);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+                return true;
+            });
+        } catch (UncheckedIOException e) {
+            // Client went away mid-page
+            throw e.getCause();
+        }
+
+        generator.writeStartObject();
+        generator.writeFieldName(FIELD_TYPE);
+        generator.writeString("page");
+        generator.writeFieldName(FIELD_COUNT);
+        generator.writeNumber(count[0]);
+        generator.writeFieldName(FIELD_HAS_MORE);
+        generator.writeBoolean(next < eventLog.getNextSequence());
+        generator.writeFieldName(FIELD_NEXT_CURSOR);
+        generator.writeString(encodeCursor(next));
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+    private static String encodeCursor(long sequence) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((CURSOR_PREFIX + sequence).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private long parseBound(String value, boolean endOfRange) {
+        if (value.length() == 10) {
+            try {
+                LocalDate date = LocalDate.parse(value);
+                LocalDate start = endOfRange ? date.plusDays(1) : date;
+                long millis = start.atStartOfDay(fechaParser.getZone()).toInstant().toEpochMilli();
+                return endOfRange ? millis - 1 : millis;
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Fecha inválida: " + value);
+            }
+        }
+        long millis = fechaParser.toEpochMillis(value);
+        if (millis == FechaEnvioParser.UNKNOWN) {
+            throw new IllegalArgumentException("Fecha inválida: " + value);
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,29 @@
+package cl.tellevo.admin.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes everything that changes snapshotted ventas state.
+ *
+ * VentasBroadcastHub holds it from the id de-duplication check until every
+ * VentasEventListener has seen the venta, and VentasReorderBuffer holds it
+ * while releasing buffered ventas to the aggregates. VentasSnapshotService
+ * takes it while serializing the sections, so the seen ids, the reorder
+ * buffer and the aggregates in one snapshot describe the same set of ventas.
+ * Outside a snapshot it is only ever contended by the reorder idle flush.
+ */
+@Component
+public class VentasIngestLock {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public void lock() {
+        lock.lock();
+    }
+
+    public void unlock() {
+        lock.unlock();
+    }
+}
@@ -0,0 +1,420 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.config.VentasSinkConfig;
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Write-behind sink that persists streamed ventas into Postgres for reporting.
+ *
+ * onVenta only offers the venta to a bounded queue, so the gRPC delivery
+ * thread never waits on the database; when the queue is full new ventas are
+ * dropped and counted. A single writer thread drains the queue into batches
+ * of up to batch-size ventas, or whatever arrived within flush-interval-ms,
+ * and loads each batch with COPY into a temporary staging table followed by
+ * INSERT ... ON CONFLICT (id) DO NOTHING, so a retried batch never
+ * duplicates rows. Batches that fail with a transient error (connection,
+ * transaction rollback, resources, operator intervention) are retried with
+ * exponential backoff while the queue keeps buffering. Any other error will
+ * not go away by retrying: a data or constraint error is narrowed down by
+ * splitting the batch until the offending ventas are found, other errors
+ * (missing table, permissions) reject the whole batch. Rejected ventas are
+ * logged and counted, and remain in the local VentasEventLog.
+ *
+ * Disabled by default (ventas.sink.enabled). The target table is part of the
+ * schema in the README; ventas.sink.create-table creates it at startup for
+ * local databases only.
+ */
+@Service
+public class VentasPostgresSink implements VentasEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentasPostgresSink.class);
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final String COLUMNS = "id, email, nombre_empresa, fecha_envio, recibido_en";
+    private static final long DROP_LOG_EVERY = 10000;
+    private static final long SHUTDOWN_GRACE_MS = 10000;
+
+    private final VentasSinkConfig sinkConfig;
+    private final DataSource dataSource;
+    private final FechaEnvioParser fechaParser;
+    private final BlockingQueue<PendingVenta> queue;
+    private final StringBuilder copyBuffer = new StringBuilder(64 * 1024);
+
+    private Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile long inFlightSince;
+    private volatile int lastBatchSize;
+    private volatile long lastBatchMillis;
+    private volatile long lastWriteAt;
+    private volatile String lastError;
+
+    @Autowired
+    public VentasPostgresSink(VentasSinkConfig sinkConfig, DataSource dataSource, FechaEnvioParser fechaParser) {
+        this.sinkConfig = sinkConfig;
+        this.dataSource = dataSource;
+        this.fechaParser = fechaParser;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, sinkConfig.getQueueCapacity()));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!sinkConfig.isEnabled()) {
+            logger.info("Ventas Postgres sink disabled");
+            return;
+        }
+        if (!IDENTIFIER.matcher(sinkConfig.getTable()).matches()) {
+            logger.error("Invalid ventas.sink.table '{}', Postgres sink not started", sinkConfig.getTable());
+            return;
+        }
+
+        if (sinkConfig.isCreateTable()) {
+            createTable();
+        }
+
+        running = true;
+        writer = new Thread(this::run, "ventas-pg-sink");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Ventas Postgres sink writing to table {} (batch {}, every {} ms)",
+            sinkConfig.getTable(), sinkConfig.getBatchSize(), sinkConfig.getFlushIntervalMs());
+    }
+
+    @Override
+    public void onVenta(VentasResponse venta) {
+        if (!running) {
+            return;
+        }
+        if (!queue.offer(new PendingVenta(venta, System.currentTimeMillis()))) {
+            long total = dropped.incrementAndGet();
+            if (total % DROP_LOG_EVERY == 1) {
+                logger.warn("Ventas Postgres sink queue full ({}), {} ventas dropped so far",
+                    sinkConfig.getQueueCapacity(), total);
+            }
+        }
+    }
+
+    /**
+     * @return queue, throughput and lag figures for monitoring
+     */
+    public Map<String, Object> getStats() {
+        long now = System.currentTimeMillis();
+        long oldest = inFlightSince;
+        PendingVenta head = queue.peek();
+        if (oldest == 0 && head != null) {
+            oldest = head.receivedAt;
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", sinkConfig.isEnabled());
+        stats.put("running", running);
+        stats.put("table", sinkConfig.getTable());
+        stats.put("queued", queue.size());
+        stats.put("queueCapacity", sinkConfig.getQueueCapacity());
+        stats.put("lagMs", oldest == 0 ? 0 : now - oldest);
+        stats.put("written", written.get());
+        stats.put("dropped", dropped.get());
+        stats.put("batches", batches.get());
+        stats.put("failedBatches", failedBatches.get());
+        stats.put("rejected", rejected.get());
+        stats.put("lastBatchSize", lastBatchSize);
+        stats.put("lastBatchMillis", lastBatchMillis);
+        stats.put("lastWriteAt", lastWriteAt);
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    private void run() {
+        int batchSize = Math.max(1, sinkConfig.getBatchSize());
+        long flushNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, sinkConfig.getFlushIntervalMs()));
+        List<PendingVenta> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingVenta first = queue.poll(flushNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch until it is full or the flush interval since its first venta has passed
+                long deadline = System.nanoTime() + flushNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0 || !running) {
+                        break;
+                    }
+                    PendingVenta next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                inFlightSince = first.receivedAt;
+                write(batch);
+                inFlightSince = 0;
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (!batch.isEmpty() || !queue.isEmpty()) {
+            long lost = batch.size() + queue.size();
+            dropped.addAndGet(lost);
+            logger.warn("Ventas Postgres sink stopped with {} ventas not written", lost);
+        }
+    }
+
+    /**
+     * Write a batch, retrying transient errors and isolating ventas Postgres rejects
+     */
+    private void write(List<PendingVenta> batch) throws InterruptedException {
+        long backoff = Math.max(1, sinkConfig.getRetryInitialBackoffMs());
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                int inserted = copyBatch(batch);
+                lastBatchSize = batch.size();
+                lastBatchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                lastWriteAt = System.currentTimeMillis();
+                written.addAndGet(inserted);
+                batches.incrementAndGet();
+                logger.debug("Wrote {} ventas ({} new) to {} in {} ms",
+                    batch.size(), inserted, sinkConfig.getTable(), lastBatchMillis);
+                return;
+            } catch (SQLException e) {
+                failedBatches.incrementAndGet();
+                lastError = e.getMessage();
+                if (isTransient(e)) {
+                    if (!retryAfter(batch, backoff, e)) {
+                        return;
+                    }
+                    backoff = Math.min(backoff * 2, Math.max(backoff, sinkConfig.getRetryMaxBackoffMs()));
+                } else if (isRowError(e) && batch.size() > 1) {
+                    // Only some rows are bad: split until they are isolated, the rest is written
+                    int half = batch.size() / 2;
+                    write(batch.subList(0, half));
+                    write(batch.subList(half, batch.size()));
+                    return;
+                } else {
+                    reject(batch, e);
+                    return;
+                }
+            } catch (IOException e) {
+                // COPY stream failure, the connection is gone
+                failedBatches.incrementAndGet();
+                lastError = e.getMessage();
+                if (!retryAfter(batch, backoff, e)) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, Math.max(backoff, sinkConfig.getRetryMaxBackoffMs()));
+            }
+        }
+    }
+
+    /**
+     * Wait before retrying a batch
+     * @return false if the sink is stopping and the batch was dropped instead
+     */
+    private boolean retryAfter(List<PendingVenta> batch, long backoff, Exception e) throws InterruptedException {
+        if (!running) {
+            dropped.addAndGet(batch.size());
+            logger.error("Could not write final batch of {} ventas to Postgres: {}", batch.size(), e.getMessage());
+            return false;
+        }
+        logger.warn("Could not write {} ventas to Postgres, retrying in {} ms: {}",
+            batch.size(), backoff, e.getMessage());
+        Thread.sleep(backoff);
+        return true;
+    }
+
+    private void reject(List<PendingVenta> batch, SQLException e) {
+        rejected.addAndGet(batch.size());
+        if (batch.size() == 1) {
+            logger.error("Postgres rejected venta {} ({}), skipping it: {}",
+                batch.get(0).venta.getId(), e.getSQLState(), e.getMessage());
+        } else {
+            logger.error("Postgres rejected a batch of {} ventas (ids {} to {}, {}), skipping it: {}",
+                batch.size(), batch.get(0).venta.getId(), batch.get(batch.size() - 1).venta.getId(),
+                e.getSQLState(), e.getMessage());
+        }
+    }
+
+    /**
+     * Connection exceptions (08), transaction rollbacks such as serialization
+     * failures and deadlocks (40), insufficient resources (53) and operator
+     * intervention such as admin shutdown (57) may succeed on retry
+     */
+    private static boolean isTransient(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        if (state == null || state.length() < 2) {
+            // No SQLState: failed before reaching Postgres (pool, driver)
+            return true;
+        }
+        return switch (state.substring(0, 2)) {
+            case "08", "40", "53", "57" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Data exceptions (22, e.g. a value too long) and integrity constraint
+     * violations (23) are caused by particular rows
+     */
+    private static boolean isRowError(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    private int copyBatch(List<PendingVenta> batch) throws SQLException, IOException {
+        String table = sinkConfig.getTable();
+        String staging = table + "_staging";
+
+        copyBuffer.setLength(0);
+        for (PendingVenta pending : batch) {
+            appendRow(pending);
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("CREATE TEMP TABLE IF NOT EXISTS " + staging
+                        + " (id integer, email text, nombre_empresa text, fecha_envio timestamp, recibido_en timestamptz)"
+                        + " ON COMMIT DELETE ROWS");
+                }
+
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                copyManager.copyIn("COPY " + staging + " (" + COLUMNS + ") FROM STDIN",
+                    new StringReader(copyBuffer.toString()));
+
+                int inserted;
+                try (Statement statement = connection.createStatement()) {
+                    inserted = statement.executeUpdate("INSERT INTO " + table + " (" + COLUMNS + ") SELECT "
+                        + COLUMNS + " FROM " + staging + " ON CONFLICT (id) DO NOTHING");
+                }
+                connection.commit();
+                return inserted;
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * One row in COPY text format: tab-separated, \N for null, backslash escapes
+     */
+    private void appendRow(PendingVenta pending) {
+        VentasResponse venta = pending.venta;
+        copyBuffer.append(venta.getId()).append('\t');
+        appendText(venta.getEmail());
+        copyBuffer.append('\t');
+        appendText(venta.getNombreEmpresa());
+        copyBuffer.append('\t');
+        if (fechaParser.toEpochMillis(venta.getFechaEnvio()) == FechaEnvioParser.UNKNOWN) {
+            copyBuffer.append("\\N");
+        } else {
+            appendText(venta.getFechaEnvio());
+        }
+        copyBuffer.append('\t');
+        copyBuffer.append(Instant.ofEpochMilli(pending.receivedAt));
+        copyBuffer.append('\n');
+    }
+
+    private void appendText(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> copyBuffer.append("\\\\");
+                case '\t' -> copyBuffer.append("\\t");
+                case '\n' -> copyBuffer.append("\\n");
+                case '\r' -> copyBuffer.append("\\r");
+                default -> copyBuffer.append(c);
+            }
+        }
+    }
+
+    private void createTable() {
+        String table = sinkConfig.getTable();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                + "id integer PRIMARY KEY, "
+                + "email varchar(255) NOT NULL, "
+                + "nombre_empresa varchar(255) NOT NULL, "
+                + "fecha_envio timestamp, "
+                + "recibido_en timestamptz NOT NULL)");
+            statement.execute("CREATE INDEX IF NOT EXISTS " + table + "_fecha_envio_idx ON " + table + " (fecha_envio)");
+        } catch (SQLException e) {
+            // Batches are rejected until the table exists
+            logger.error("Could not create table {} for the ventas sink: {}", table, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            // Let the writer flush what is already queued
+            writer.join(SHUTDOWN_GRACE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+    }
+
+    private static final class PendingVenta {
+        private final VentasResponse venta;
+        private final long receivedAt;
+
+        private PendingVenta(VentasResponse venta, long receivedAt) {
+            this.venta = venta;
+            this.receivedAt = receivedAt;
+        }
+    }
+}
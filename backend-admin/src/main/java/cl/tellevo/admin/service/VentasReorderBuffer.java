@@ -0,0 +1,260 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.config.VentasAggregationConfig;
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts streamed ventas back in fecha_envio order before the aggregations see
+ * them.
+ *
+ * Ventas are held in a min-heap by event time. The watermark trails the
+ * newest event time seen by the allowed lateness, and every venta at or
+ * before the watermark is released, oldest first, to the
+ * VentasEventTimeListener beans. A venta whose event time is already behind
+ * the watermark is counted as late and dropped from the aggregations rather
+ * than added to buckets that were already read. Ventas without a parseable
+ * fecha_envio take the newest event time seen.
+ *
+ * When no venta arrives for the allowed lateness, or the buffer is full, the
+ * watermark is pushed forward so nothing waits indefinitely. Ventas arrive
+ * under the VentasIngestLock, and releases outside onVenta take it too, so a
+ * snapshot never catches a venta between this buffer and the aggregates.
+ */
+@Service
+public class VentasReorderBuffer implements VentasEventListener, VentasSnapshotParticipant {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentasReorderBuffer.class);
+
+    private static final Comparator<PendingVenta> EVENT_TIME_ORDER =
+        Comparator.comparingLong((PendingVenta pending) -> pending.eventTime).thenComparingLong(pending -> pending.sequence);
+
+    private final FechaEnvioParser fechaParser;
+    private final List<VentasEventTimeListener> listeners;
+    private final VentasIngestLock ingestLock;
+    private final long allowedLatenessMs;
+    private final int maxBuffered;
+    private final ScheduledExecutorService idleFlusher;
+
+    // Guarded by this
+    private final PriorityQueue<PendingVenta> pending = new PriorityQueue<>(EVENT_TIME_ORDER);
+    private long sequence;
+    private long maxEventTime = Long.MIN_VALUE;
+    private long watermark = Long.MIN_VALUE;
+    private long lastArrivalNanos = System.nanoTime();
+    private long released;
+    private long late;
+    private long maxLateByMs;
+    private long sinFecha;
+    private long forcedReleases;
+
+    @Autowired
+    public VentasReorderBuffer(VentasAggregationConfig aggregationConfig, FechaEnvioParser fechaParser,
+                               ObjectProvider<VentasEventTimeListener> listeners, VentasIngestLock ingestLock) {
+        this.fechaParser = fechaParser;
+        this.listeners = listeners.orderedStream().toList();
+        this.ingestLock = ingestLock;
+        this.allowedLatenessMs = Math.max(0, aggregationConfig.getReorderAllowedLatenessMs());
+        this.maxBuffered = Math.max(1, aggregationConfig.getReorderMaxBuffered());
+        this.idleFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ventas-reorder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = Math.max(50, Math.min(1000, allowedLatenessMs / 2));
+        idleFlusher.scheduleWithFixedDelay(this::flushIfIdle, interval, interval, TimeUnit.MILLISECONDS);
+        logger.info("Ventas reorder buffer: {} ms allowed lateness, {} event-time listener(s)",
+            allowedLatenessMs, listeners.size());
+    }
+
+    @Override
+    public void onVenta(VentasResponse venta) {
+        long eventTime = fechaParser.toEpochMillis(venta.getFechaEnvio());
+        synchronized (this) {
+            lastArrivalNanos = System.nanoTime();
+            if (eventTime == FechaEnvioParser.UNKNOWN) {
+                sinFecha++;
+                eventTime = maxEventTime != Long.MIN_VALUE ? maxEventTime : System.currentTimeMillis();
+            }
+            if (eventTime < watermark) {
+                late++;
+                maxLateByMs = Math.max(maxLateByMs, watermark - eventTime);
+                return;
+            }
+
+            pending.add(new PendingVenta(venta, eventTime, sequence++));
+            if (eventTime > maxEventTime) {
+                maxEventTime = eventTime;
+                advance(maxEventTime - allowedLatenessMs);
+            }
+            if (pending.size() > maxBuffered) {
+                forcedReleases++;
+                advance(pending.peek().eventTime);
+            }
+        }
+    }
+
+    /**
+     * Release every buffered venta now
+     */
+    public void flush() {
+        ingestLock.lock();
+        try {
+            synchronized (this) {
+                if (!pending.isEmpty()) {
+                    advance(maxEventTime);
+                }
+            }
+        } finally {
+            ingestLock.unlock();
+        }
+    }
+
+    /**
+     * @return buffer depth, watermark and late venta counts for monitoring
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("allowedLatenessMs", allowedLatenessMs);
+        stats.put("buffered", pending.size());
+        stats.put("maxBuffered", maxBuffered);
+        stats.put("watermark", watermark == Long.MIN_VALUE ? null : watermark);
+        stats.put("maxEventTime", maxEventTime == Long.MIN_VALUE ? null : maxEventTime);
+        stats.put("released", released);
+        stats.put("late", late);
+        stats.put("maxLateByMs", maxLateByMs);
+        stats.put("sinFecha", sinFecha);
+        stats.put("forcedReleases", forcedReleases);
+        return stats;
+    }
+
+    /**
+     * @return ventas dropped from the aggregations because they arrived behind the watermark
+     */
+    public synchronized long getLate() {
+        return late;
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return "reorder";
+    }
+
+    @Override
+    public synchronized void writeSnapshot(DataOutput out) throws IOException {
+        // Buffered ventas are not in any aggregate yet, so they are saved with the watermark
+        out.writeLong(watermark);
+        out.writeLong(maxEventTime);
+        out.writeInt(pending.size());
+        for (PendingVenta venta : pending) {
+            byte[] bytes = venta.venta.toByteArray();
+            out.writeLong(venta.eventTime);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(DataInput in) throws IOException {
+        long storedWatermark = in.readLong();
+        long storedMaxEventTime = in.readLong();
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Negative reorder buffer size " + count);
+        }
+        List<PendingVenta> storedPending = new ArrayList<>(Math.min(count, maxBuffered));
+        for (int i = 0; i < count; i++) {
+            long eventTime = in.readLong();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            storedPending.add(new PendingVenta(VentasResponse.parseFrom(bytes), eventTime, i));
+        }
+
+        synchronized (this) {
+            watermark = storedWatermark;
+            maxEventTime = storedMaxEventTime;
+            pending.clear();
+            pending.addAll(storedPending);
+            sequence = count;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        idleFlusher.shutdownNow();
+        flush();
+    }
+
+    private void flushIfIdle() {
+        ingestLock.lock();
+        try {
+            synchronized (this) {
+                long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastArrivalNanos);
+                if (!pending.isEmpty() && idleMillis >= allowedLatenessMs) {
+                    advance(maxEventTime);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Ventas reorder idle flush failed", e);
+        } finally {
+            ingestLock.unlock();
+        }
+    }
+
+    /**
+     * Move the watermark forward and release what it passed. Caller holds the lock.
+     */
+    private void advance(long newWatermark) {
+        if (newWatermark <= watermark) {
+            return;
+        }
+        watermark = newWatermark;
+        while (!pending.isEmpty() && pending.peek().eventTime <= watermark) {
+            PendingVenta next = pending.poll();
+            released++;
+            for (VentasEventTimeListener listener : listeners) {
+                try {
+                    listener.onVenta(next.venta, next.eventTime);
+                } catch (RuntimeException e) {
+                    logger.error("Ventas event-time listener {} failed for venta {}",
+                        listener.getClass().getSimpleName(), next.venta.getId(), e);
+                }
+            }
+        }
+    }
+
+    private static final class PendingVenta {
+        private final VentasResponse venta;
+        private final long eventTime;
+        private final long sequence;
+
+        private PendingVenta(VentasResponse venta, long eventTime, long sequence) {
+            this.venta = venta;
+            this.eventTime = eventTime;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.aggregation.RollupResolution;
+import cl.tellevo.admin.aggregation.RollupRing;
+import cl.tellevo.admin.config.VentasAggregationConfig;
+import cl.tellevo.admin.dto.VentasSeries;
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-second, per-minute and per-hour venta counts for charts.
+ *
+ * Each resolution is a RollupRing sized from configuration, holding one
+ * series for all ventas plus one per tracked empresa. All memory is
+ * allocated at startup; recording a venta only bumps array slots. Empresas
+ * get a series the first time they are seen, until the configured number of
+ * series runs out; later ones only count towards the total. Ventas are
+ * bucketed by fecha_envio, in the order the VentasReorderBuffer releases them.
+ */
+@Service
+public class VentasRollupService implements VentasEventTimeListener, VentasSnapshotParticipant {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentasRollupService.class);
+
+    private static final int TOTAL_SERIES = 0;
+
+    private final VentasAggregationConfig aggregationConfig;
+    // Indexed by RollupResolution ordinal
+    private volatile RollupRing[] rings;
+    private volatile Map<String, Integer> empresaSeries = new ConcurrentHashMap<>();
+    private final int seriesCount;
+
+    @Autowired
+    public VentasRollupService(VentasAggregationConfig aggregationConfig) {
+        this.aggregationConfig = aggregationConfig;
+        this.seriesCount = Math.max(0, aggregationConfig.getRollupEmpresas()) + 1;
+        this.rings = newRings();
+
+        long bytes = 0;
+        for (RollupRing ring : rings) {
+            bytes += ring.getMemoryBytes();
+        }
+        logger.info("Ventas rollups: {} series, {} KiB preallocated", seriesCount, bytes / 1024);
+    }
+
+    @Override
+    public void onVenta(VentasResponse venta, long eventTime) {
+        int series = seriesFor(venta.getNombreEmpresa());
+        for (RollupRing ring : rings) {
+            ring.increment(eventTime, TOTAL_SERIES);
+            if (series != TOTAL_SERIES) {
+                ring.increment(eventTime, series);
+            }
+        }
+    }
+
+    /**
+     * Read venta counts per bucket for a time range
+     * @param resolution bucket width
+     * @param from start of the range in epoch milliseconds (inclusive)
+     * @param to end of the range in epoch milliseconds (inclusive)
+     * @param empresa nombre_empresa to read, or null for all ventas
+     * @return one count per bucket; buckets outside the retained range are 0
+     * @throws IllegalArgumentException if the range is inverted or too many points are requested
+     */
+    public VentasSeries getSeries(RollupResolution resolution, long from, long to, String empresa) {
+        if (from > to) {
+            throw new IllegalArgumentException("from debe ser anterior a to");
+        }
+
+        long bucketMillis = resolution.getBucketMillis();
+        long fromEpoch = Math.floorDiv(from, bucketMillis);
+        long toEpoch = Math.floorDiv(to, bucketMillis);
+        long points = toEpoch - fromEpoch + 1;
+        if (points > aggregationConfig.getMaxSeriesPoints()) {
+            throw new IllegalArgumentException("El rango pedido excede el máximo de "
+                + aggregationConfig.getMaxSeriesPoints() + " puntos");
+        }
+
+        long[] counts = new long[(int) points];
+        if (empresa == null) {
+            rings[resolution.ordinal()].read(TOTAL_SERIES, fromEpoch, counts);
+        } else {
+            Integer series = empresaSeries.get(empresa);
+            if (series != null) {
+                rings[resolution.ordinal()].read(series, fromEpoch, counts);
+            }
+        }
+        return new VentasSeries(resolution.name(), bucketMillis, fromEpoch * bucketMillis,
+            (toEpoch + 1) * bucketMillis, empresa, counts);
+    }
+
+    /**
+     * @param resolution bucket width
+     * @return how far back the given resolution reaches, in milliseconds
+     */
+    public long getRetentionMillis(RollupResolution resolution) {
+        return rings[resolution.ordinal()].getLength() * resolution.getBucketMillis();
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return "rollups";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        // Copy first: series may be assigned while writing, and the count must match the entries
+        List<Map.Entry<String, Integer>> series = List.copyOf(empresaSeries.entrySet());
+        out.writeInt(series.size());
+        for (Map.Entry<String, Integer> entry : series) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        for (RollupRing ring : rings) {
+            ring.writeTo(out);
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(DataInput in) throws IOException {
+        int count = in.readInt();
+        Map<String, Integer> storedSeries = new ConcurrentHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String empresa = in.readUTF();
+            int series = in.readInt();
+            if (series <= TOTAL_SERIES || series >= seriesCount) {
+                throw new IOException("Rollup series " + series + " for '" + empresa + "' out of range");
+            }
+            storedSeries.put(empresa, series);
+        }
+        RollupRing[] storedRings = newRings();
+        for (RollupRing ring : storedRings) {
+            ring.readFrom(in);
+        }
+
+        empresaSeries = storedSeries;
+        rings = storedRings;
+    }
+
+    private RollupRing[] newRings() {
+        RollupRing[] created = new RollupRing[RollupResolution.values().length];
+        created[RollupResolution.SECOND.ordinal()] =
+            new RollupRing(RollupResolution.SECOND, aggregationConfig.getRollupSecondBuckets(), seriesCount);
+        created[RollupResolution.MINUTE.ordinal()] =
+            new RollupRing(RollupResolution.MINUTE, aggregationConfig.getRollupMinuteBuckets(), seriesCount);
+        created[RollupResolution.HOUR.ordinal()] =
+            new RollupRing(RollupResolution.HOUR, aggregationConfig.getRollupHourBuckets(), seriesCount);
+        return created;
+    }
+
+    private int seriesFor(String empresa) {
+        Integer series = empresaSeries.get(empresa);
+        if (series != null) {
+            return series;
+        }
+        synchronized (empresaSeries) {
+            series = empresaSeries.get(empresa);
+            if (series == null) {
+                int next = empresaSeries.size() + 1;
+                if (next >= seriesCount) {
+                    return TOTAL_SERIES;
+                }
+                series = next;
+                empresaSeries.put(empresa, series);
+            }
+            return series;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package cl.tellevo.admin.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * In-memory ventas state that VentasSnapshotService saves periodically and
+ * restores on startup, before the ventas stream is opened.
+ */
+public interface VentasSnapshotParticipant {
+
+    /**
+     * @return unique section name in the snapshot file
+     */
+    String getSnapshotName();
+
+    /**
+     * @param out receives the participant's state
+     */
+    void writeSnapshot(DataOutput out) throws IOException;
+
+    /**
+     * Replace the participant's state with a previously written one. The
+     * current state must stay untouched if this throws.
+     * @param in the section written by writeSnapshot
+     * @throws IOException if the section is corrupt or no longer matches the configuration
+     */
+    void restoreSnapshot(DataInput in) throws IOException;
+}
@@ -0,0 +1,273 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.config.VentasAggregationConfig;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Periodic binary snapshots of the in-memory ventas aggregates.
+ *
+ * Every VentasSnapshotParticipant is written as a named section into one
+ * file: a header (magic, version, creation time, section count), the
+ * sections, and a CRC32C of everything before it. The file is written
+ * through a memory mapping into a temporary file and atomically moved into
+ * place, so a crash mid-write leaves the previous snapshot intact. The
+ * sections are serialized while holding the VentasIngestLock, which pauses
+ * ingestion for that long (not for the file write), so every section reflects
+ * the same ventas: a venta is never remembered as seen without being counted.
+ *
+ * restore() runs from BackendAdminApplication after all beans exist but
+ * before the web server and the ventas stream start. A section that fails
+ * to load (corrupt, or written under a different configuration) is skipped
+ * and that participant starts empty.
+ */
+@Service
+public class VentasSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentasSnapshotService.class);
+
+    private static final int MAGIC = 0x56534E50; // "VSNP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int CHECKSUM_BYTES = 4;
+
+    private final VentasAggregationConfig aggregationConfig;
+    private final List<VentasSnapshotParticipant> participants;
+    private final VentasIngestLock ingestLock;
+    private final Path snapshotPath;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile long lastSnapshotAt;
+    private volatile long lastSnapshotBytes;
+
+    @Autowired
+    public VentasSnapshotService(VentasAggregationConfig aggregationConfig,
+                                 ObjectProvider<VentasSnapshotParticipant> participants,
+                                 VentasIngestLock ingestLock) {
+        this.aggregationConfig = aggregationConfig;
+        this.participants = participants.orderedStream().toList();
+        this.ingestLock = ingestLock;
+        this.snapshotPath = Paths.get(aggregationConfig.getSnapshotPath());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ventas-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Load the last snapshot into the participants, if there is one
+     */
+    public void restore() {
+        if (!aggregationConfig.isSnapshotEnabled() || !Files.exists(snapshotPath)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + CHECKSUM_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected snapshot size " + size);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ByteBuffer body = mapped.slice(0, (int) size - CHECKSUM_BYTES);
+
+            CRC32C crc = new CRC32C();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != mapped.getInt((int) size - CHECKSUM_BYTES)) {
+                throw new IOException("Checksum mismatch");
+            }
+
+            if (body.getInt() != MAGIC || body.getInt() != VERSION) {
+                throw new IOException("Not a version " + VERSION + " ventas snapshot");
+            }
+            long createdAt = body.getLong();
+            int sectionCount = body.getInt();
+
+            Map<String, VentasSnapshotParticipant> byName = new HashMap<>();
+            for (VentasSnapshotParticipant participant : participants) {
+                byName.put(participant.getSnapshotName(), participant);
+            }
+
+            int restored = 0;
+            for (int i = 0; i < sectionCount; i++) {
+                byte[] nameBytes = new byte[body.getShort() & 0xFFFF];
+                body.get(nameBytes);
+                String name = new String(nameBytes, StandardCharsets.UTF_8);
+                int length = body.getInt();
+                ByteBuffer section = body.slice(body.position(), length);
+                body.position(body.position() + length);
+
+                VentasSnapshotParticipant participant = byName.get(name);
+                if (participant == null) {
+                    logger.warn("Ignoring unknown snapshot section '{}'", name);
+                    continue;
+                }
+                try {
+                    participant.restoreSnapshot(new DataInputStream(new ByteBufferInputStream(section)));
+                    restored++;
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Could not restore snapshot section '{}', starting it empty: {}", name, e.getMessage());
+                }
+            }
+
+            logger.info("Restored {}/{} ventas aggregate sections from {} ({} bytes, {} s old) in {} ms",
+                restored, sectionCount, snapshotPath, size, (System.currentTimeMillis() - createdAt) / 1000,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not restore ventas aggregates from {}, starting empty: {}",
+                snapshotPath, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Start writing snapshots every ventas.aggregation.snapshot-interval-ms
+     */
+    public void start() {
+        long interval = aggregationConfig.getSnapshotIntervalMs();
+        if (!aggregationConfig.isSnapshotEnabled() || interval <= 0) {
+            logger.info("Ventas aggregate snapshots disabled");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write a snapshot of every participant now
+     * @throws IOException if the file could not be written; the previous snapshot is kept
+     */
+    public synchronized void snapshot() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+        DataOutputStream out = new DataOutputStream(buffer);
+        long createdAt = System.currentTimeMillis();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(createdAt);
+        out.writeInt(participants.size());
+
+        ByteArrayOutputStream section = new ByteArrayOutputStream(64 * 1024);
+        long pauseStart = System.nanoTime();
+        ingestLock.lock();
+        try {
+            for (VentasSnapshotParticipant participant : participants) {
+                section.reset();
+                DataOutputStream sectionOut = new DataOutputStream(section);
+                participant.writeSnapshot(sectionOut);
+                sectionOut.flush();
+
+                byte[] name = participant.getSnapshotName().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeInt(section.size());
+                section.writeTo(out);
+            }
+        } finally {
+            ingestLock.unlock();
+        }
+        long pauseMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pauseStart);
+        out.flush();
+
+        byte[] body = buffer.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+
+        Path parent = snapshotPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, body.length + CHECKSUM_BYTES);
+            mapped.put(body);
+            mapped.putInt((int) crc.getValue());
+            mapped.force();
+        }
+        Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        lastSnapshotAt = createdAt;
+        lastSnapshotBytes = body.length + CHECKSUM_BYTES;
+        logger.debug("Wrote ventas aggregate snapshot to {} ({} bytes, ingestion paused {} ms)",
+            snapshotPath, lastSnapshotBytes, pauseMillis);
+    }
+
+    /**
+     * @return epoch milliseconds of the last snapshot written, 0 if none yet
+     */
+    public long getLastSnapshotAt() {
+        return lastSnapshotAt;
+    }
+
+    public long getLastSnapshotBytes() {
+        return lastSnapshotBytes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        if (aggregationConfig.isSnapshotEnabled()) {
+            // Final snapshot so a rolling restart resumes from the moment we stopped
+            snapshotQuietly();
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not write ventas aggregate snapshot to {}: {}", snapshotPath, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a (memory-mapped) buffer without copying it to the heap first
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package cl.tellevo.admin.service;
+
+/**
+ * Notified when a ReconnectingVentasStream loses or regains the upstream call.
+ */
+public interface VentasStreamStateListener {
+
+    /**
+     * The upstream call failed or ended and a new attempt is scheduled
+     * @param attempt number of consecutive failed attempts, starting at 1
+     * @param retryInMs delay before the next attempt
+     * @param cause why the previous call ended, or null if the server completed it
+     */
+    void onDegraded(int attempt, long retryInMs, Throwable cause);
+
+    /**
+     * A new upstream call is delivering data again
+     */
+    void onRestored();
+}
@@ -0,0 +1,74 @@
+package cl.tellevo.admin.service;
+
+import io.grpc.Context;
+
+/**
+ * Handle for one StreamVentas call started by VentasGrpcClient.
+ *
+ * The call runs inside its own cancellable gRPC Context; cancel() cancels
+ * that context, which tears down the call on the channel. A subscription is
+ * "orphaned" between cancel() and the call's terminal callback, i.e. while
+ * nobody wants its data but the call has not been released yet.
+ */
+public class VentasSubscription {
+
+    private final VentasGrpcClient client;
+    private final Context.CancellableContext context;
+
+    // Guarded by this
+    private boolean cancelled;
+    private boolean terminated;
+
+    VentasSubscription(VentasGrpcClient client, Context.CancellableContext context) {
+        this.client = client;
+        this.context = context;
+    }
+
+    Context.CancellableContext getContext() {
+        return context;
+    }
+
+    /**
+     * Cancel the call. Safe to call more than once and after the call ended.
+     */
+    public void cancel() {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (!terminated) {
+                client.onCancelRequested();
+            }
+        }
+        context.cancel(null);
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return true once the call has completed, failed or been cancelled on the channel
+     */
+    public synchronized boolean isTerminated() {
+        return terminated;
+    }
+
+    /**
+     * Called from the call's terminal callback (onError or onCompleted)
+     */
+    void markTerminated() {
+        boolean wasOrphaned;
+        synchronized (this) {
+            if (terminated) {
+                return;
+            }
+            terminated = true;
+            wasOrphaned = cancelled;
+        }
+        // Release the context's cancellation listeners whatever the reason the call ended
+        context.cancel(null);
+        client.onTerminated(this, wasOrphaned);
+    }
+}
@@ -0,0 +1,95 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.aggregation.TopKTracker;
+import cl.tellevo.admin.config.VentasAggregationConfig;
+import cl.tellevo.admin.dto.VentasTopEmpresas;
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Live "top empresas by ventas" leaderboard in constant memory.
+ *
+ * Counts come from a count-min sketch, so they may overestimate by up to
+ * epsilon * total ventas (with probability 1 - delta) but never underestimate.
+ * With the default 2048 x 5 sketch that is about 0.13% of all ventas, with
+ * a 0.7% chance of exceeding it. The bound is returned with every leaderboard.
+ * Like the other aggregates it is fed by the VentasReorderBuffer, so late
+ * ventas are left out of it too.
+ */
+@Service
+public class VentasTopEmpresasService implements VentasEventTimeListener, VentasSnapshotParticipant {
+
+    private final VentasAggregationConfig aggregationConfig;
+    private volatile TopKTracker tracker;
+
+    @Autowired
+    public VentasTopEmpresasService(VentasAggregationConfig aggregationConfig) {
+        this.aggregationConfig = aggregationConfig;
+        this.tracker = newTracker();
+    }
+
+    @Override
+    public void onVenta(VentasResponse venta, long eventTime) {
+        tracker.add(venta.getNombreEmpresa());
+    }
+
+    /**
+     * @param limit maximum number of empresas, capped at the configured k
+     * @return the leaderboard with its error bound
+     */
+    public VentasTopEmpresas getTopEmpresas(int limit) {
+        TopKTracker tracker = this.tracker;
+        long total = tracker.getTotal();
+        List<VentasTopEmpresas.EmpresaEstimada> empresas = new ArrayList<>();
+        for (TopKTracker.Entry entry : tracker.top(Math.max(1, limit))) {
+            empresas.add(new VentasTopEmpresas.EmpresaEstimada(entry.getKey(), entry.getCount()));
+        }
+        return new VentasTopEmpresas(
+            tracker.getK(),
+            total,
+            tracker.getEpsilon(),
+            tracker.getDelta(),
+            (long) Math.ceil(tracker.getEpsilon() * total),
+            empresas
+        );
+    }
+
+    /**
+     * @return the full leaderboard (k entries)
+     */
+    public VentasTopEmpresas getTopEmpresas() {
+        return getTopEmpresas(tracker.getK());
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return "top-empresas";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        tracker.writeTo(out);
+    }
+
+    @Override
+    public void restoreSnapshot(DataInput in) throws IOException {
+        TopKTracker stored = newTracker();
+        stored.readFrom(in);
+        tracker = stored;
+    }
+
+    private TopKTracker newTracker() {
+        return new TopKTracker(
+            aggregationConfig.getTopEmpresas(),
+            aggregationConfig.getTopSketchWidth(),
+            aggregationConfig.getTopSketchDepth()
+        );
+    }
+}
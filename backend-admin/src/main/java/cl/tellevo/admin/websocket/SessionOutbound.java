@@ -0,0 +1,338 @@
+package cl.tellevo.admin.websocket;
+
+import cl.tellevo.admin.dto.VentasSessionStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded outbound queue for one WebSocket session.
+ *
+ * Producers never block: offer() applies the slow-consumer policy when the
+ * queue is full and returns immediately. A writer task on the shared executor
+ * drains the queue with blocking sendMessage calls, and at most one writer
+ * runs per session, so a slow client only ever stalls its own queue.
+ *
+ * Sessions that asked for batching route venta frames through a VentaBatcher,
+ * which feeds coalesced array frames into the same queue. Sessions on the
+ * binary subprotocol get each venta as a protobuf BinaryMessage instead and
+ * are never batched. Control frames (status, acks, top-empresas pushes) are
+ * queued alongside the ventas; DROP_OLDEST and CONFLATE evict ventas first
+ * and only drop the oldest control frame when the queue holds nothing else.
+ */
+final class SessionOutbound {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionOutbound.class);
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final SlowConsumerPolicy policy;
+    private final Executor writerExecutor;
+    private final UpstreamDemand demand;
+    private VentaBatcher batcher;
+    private boolean binary;
+    private volatile VentasFilter filter = VentasFilter.ALL;
+
+    // Guarded by this
+    private final ArrayDeque<Pending> queue;
+    private boolean draining;
+    private boolean closed;
+    private boolean released;
+    private CloseStatus closeAfterDrain;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    SessionOutbound(WebSocketSession session, int capacity, SlowConsumerPolicy policy, Executor writerExecutor,
+                    UpstreamDemand demand) {
+        this.session = session;
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy;
+        this.writerExecutor = writerExecutor;
+        this.demand = demand;
+        this.queue = new ArrayDeque<>(this.capacity);
+        demand.capacityAdded(this.capacity);
+    }
+
+    WebSocketSession getSession() {
+        return session;
+    }
+
+    VentasFilter getFilter() {
+        return filter;
+    }
+
+    void setFilter(VentasFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Send ventas as protobuf BinaryMessages instead of JSON text
+     */
+    void useBinaryFrames() {
+        this.binary = true;
+    }
+
+    /**
+     * Coalesce venta frames into arrays of up to maxSize, flushed at most maxDelayMs after the first one
+     */
+    void enableBatching(int maxSize, long maxDelayMs, ScheduledExecutorService scheduler) {
+        this.batcher = new VentaBatcher(maxSize, maxDelayMs, scheduler, message -> offer(message, false));
+    }
+
+    /**
+     * Queue a venta, batching it if the session asked for it
+     * @param frame the shared encoded venta
+     * @return false if the venta was dropped or the session is closing
+     */
+    boolean offerVenta(VentaFrame frame) {
+        if (binary) {
+            return offer(frame.getBinaryMessage(), false);
+        } else if (batcher != null) {
+            batcher.add(frame);
+            return true;
+        } else {
+            return offer(frame.getTextMessage(), false);
+        }
+    }
+
+    /**
+     * Queue replayed ventas into the free part of the queue without evicting
+     * anything already pending, so the count returned is what will be sent.
+     * One slot is left for the ack that follows the replay.
+     * @param frames ventas that passed the session's filter, oldest first
+     * @return how many of the most recent frames were queued; older ones did not fit
+     */
+    int replay(List<VentaFrame> frames) {
+        if (batcher != null) {
+            batcher.flush();
+        }
+        int perMessage = batcher != null ? batcher.getMaxSize() : 1;
+        int queued;
+        boolean startWriter;
+        synchronized (this) {
+            if (closed || closeAfterDrain != null) {
+                return 0;
+            }
+            long room = (long) Math.max(0, capacity - queue.size() - 1) * perMessage;
+            queued = (int) Math.min(frames.size(), room);
+            if (queued == 0) {
+                return 0;
+            }
+
+            List<VentaFrame> tail = frames.subList(frames.size() - queued, frames.size());
+            for (int i = 0; i < tail.size(); i += perMessage) {
+                List<VentaFrame> chunk = tail.subList(i, Math.min(tail.size(), i + perMessage));
+                WebSocketMessage<?> message = batcher != null
+                    ? VentaBatcher.encode(chunk)
+                    : binary ? chunk.get(0).getBinaryMessage() : chunk.get(0).getTextMessage();
+                queue.addLast(new Pending(message, false));
+                demand.framesQueued(1);
+            }
+            startWriter = !draining;
+            draining = true;
+        }
+
+        if (startWriter) {
+            writerExecutor.execute(this::drain);
+        }
+        return queued;
+    }
+
+    /**
+     * Queue a message for delivery without blocking
+     * @param message the frame to send
+     * @param control true for status/ack frames, which the drop policies evict last
+     * @return false if the message was not queued (dropped or session closing)
+     */
+    private boolean offer(WebSocketMessage<?> message, boolean control) {
+        boolean queued = true;
+        boolean startWriter;
+        synchronized (this) {
+            if (closed || closeAfterDrain != null) {
+                return false;
+            }
+
+            if (queue.size() >= capacity) {
+                switch (policy) {
+                    case DROP_OLDEST -> {
+                        if (!removeOldestVenta()) {
+                            queue.pollFirst();
+                        }
+                        demand.framesRemoved(1);
+                        dropped.incrementAndGet();
+                    }
+                    case DROP_NEWEST -> {
+                        dropped.incrementAndGet();
+                        return false;
+                    }
+                    case CONFLATE -> {
+                        // Only stale ventas are superseded; control frames stay in order
+                        int before = queue.size();
+                        queue.removeIf(pending -> !pending.control);
+                        int removed = before - queue.size();
+                        if (removed == 0) {
+                            // A queue full of control frames still has to stay bounded
+                            queue.pollFirst();
+                            removed = 1;
+                        }
+                        dropped.addAndGet(removed);
+                        demand.framesRemoved(removed);
+                    }
+                    case DISCONNECT -> {
+                        logger.warn("Session {} exceeded {} pending frames, disconnecting slow consumer",
+                            session.getId(), capacity);
+                        dropped.addAndGet(queue.size() + 1L);
+                        demand.framesRemoved(queue.size());
+                        queue.clear();
+                        closeAfterDrain = CloseStatus.SESSION_NOT_RELIABLE;
+                        queued = false;
+                    }
+                }
+            }
+
+            if (queued) {
+                queue.addLast(new Pending(message, control));
+                demand.framesQueued(1);
+            }
+            startWriter = !draining;
+            draining = true;
+        }
+
+        if (startWriter) {
+            writerExecutor.execute(this::drain);
+        }
+        return queued;
+    }
+
+    /**
+     * Queue a control message after any ventas still waiting in the batcher
+     * @param message the frame to send
+     */
+    void offerControl(WebSocketMessage<?> message) {
+        if (batcher != null) {
+            batcher.flush();
+        }
+        offer(message, true);
+    }
+
+    /**
+     * Stop accepting messages and discard anything pending. Called once the
+     * session is already closed.
+     */
+    void discard() {
+        if (batcher != null) {
+            batcher.cancel();
+        }
+        synchronized (this) {
+            closed = true;
+            demand.framesRemoved(queue.size());
+            queue.clear();
+            if (!released) {
+                released = true;
+                demand.capacityRemoved(capacity);
+            }
+        }
+    }
+
+    VentasSessionStats stats() {
+        int depth;
+        synchronized (this) {
+            depth = queue.size();
+        }
+        return new VentasSessionStats(
+            session.getId(),
+            binary ? "protobuf" : "json",
+            policy.name(),
+            capacity,
+            depth,
+            sent.get(),
+            dropped.get(),
+            batcher != null ? batcher.getMaxSize() : 1,
+            batcher != null ? batcher.getMaxDelayMs() : 0,
+            filter.describe()
+        );
+    }
+
+    private void drain() {
+        while (true) {
+            Pending next;
+            CloseStatus closeStatus = null;
+            synchronized (this) {
+                next = queue.pollFirst();
+                if (next != null) {
+                    demand.framesRemoved(1);
+                } else {
+                    draining = false;
+                    if (closed || closeAfterDrain == null) {
+                        return;
+                    }
+                    closed = true;
+                    closeStatus = closeAfterDrain;
+                }
+            }
+
+            if (closeStatus != null) {
+                close(closeStatus);
+                return;
+            }
+
+            if (!session.isOpen()) {
+                discard();
+                return;
+            }
+
+            try {
+                session.sendMessage(next.message);
+                sent.incrementAndGet();
+            } catch (IOException | IllegalStateException e) {
+                logger.error("Error sending WebSocket message for session {}", session.getId(), e);
+                discard();
+                close(CloseStatus.SERVER_ERROR);
+                return;
+            }
+        }
+    }
+
+    // Caller holds this
+    private boolean removeOldestVenta() {
+        Iterator<Pending> it = queue.iterator();
+        while (it.hasNext()) {
+            if (!it.next().control) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void close(CloseStatus status) {
+        try {
+            if (session.isOpen()) {
+                session.close(status);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to close WebSocket session {}", session.getId(), e);
+        }
+    }
+
+    private static final class Pending {
+        private final WebSocketMessage<?> message;
+        private final boolean control;
+
+        private Pending(WebSocketMessage<?> message, boolean control) {
+            this.message = message;
+            this.control = control;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package cl.tellevo.admin.websocket;
+
+/**
+ * What a session's outbound queue does when a new frame arrives and it is full.
+ */
+public enum SlowConsumerPolicy {
+    /** Discard the oldest pending venta (a control frame only if no venta is pending) to make room */
+    DROP_OLDEST,
+    /** Discard the incoming frame and keep what is already pending */
+    DROP_NEWEST,
+    /** Replace the pending ventas with the incoming frame, so the client only sees the latest */
+    CONFLATE,
+    /** Close the session; the client is expected to reconnect */
+    DISCONNECT
+}
@@ -0,0 +1,88 @@
+package cl.tellevo.admin.websocket;
+
+import io.grpc.stub.ClientCallStreamObserver;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Manual inbound flow control for the shared StreamVentas call.
+ *
+ * Automatic flow control keeps asking the ventas service for more no matter
+ * how far behind processing is. Here the call starts with a fixed window of
+ * requested messages and each message only earns a new request once it has
+ * gone through the listeners (event log, Postgres sink, reorder buffer) and
+ * been fanned out, so a slow listener pushes back on the ventas service over
+ * HTTP/2 instead of piling messages up in our heap.
+ *
+ * Browser delivery deliberately does not hold requests back. Every session
+ * queue is bounded and its slow-consumer policy decides what a laggard loses;
+ * pausing the shared call instead would let one slow tab (often the only one
+ * connected) set the pace for the listeners and keep its own policy from ever
+ * firing. The outbound queue fill is only tracked for monitoring.
+ */
+final class UpstreamDemand {
+
+    private final int window;
+
+    private final AtomicInteger pendingFrames = new AtomicInteger();
+    private final AtomicInteger totalCapacity = new AtomicInteger();
+
+    // Guarded by this
+    private ClientCallStreamObserver<?> call;
+
+    UpstreamDemand(int window) {
+        this.window = Math.max(1, window);
+    }
+
+    /**
+     * Switch a new call to manual flow control. Must run from beforeStart.
+     */
+    synchronized void attach(ClientCallStreamObserver<?> requestStream) {
+        requestStream.disableAutoRequestWithInitial(window);
+        this.call = requestStream;
+    }
+
+    synchronized void detach() {
+        this.call = null;
+    }
+
+    /**
+     * Called once an upstream message has been through the listeners and fanned out to every session
+     */
+    synchronized void onMessageProcessed() {
+        if (call != null) {
+            call.request(1);
+        }
+    }
+
+    void framesQueued(int count) {
+        pendingFrames.addAndGet(count);
+    }
+
+    void framesRemoved(int count) {
+        if (count > 0) {
+            pendingFrames.addAndGet(-count);
+        }
+    }
+
+    void capacityAdded(int capacity) {
+        totalCapacity.addAndGet(capacity);
+    }
+
+    void capacityRemoved(int capacity) {
+        totalCapacity.addAndGet(-capacity);
+    }
+
+    double fillRatio() {
+        int capacity = totalCapacity.get();
+        return capacity <= 0 ? 0.0 : (double) pendingFrames.get() / capacity;
+    }
+
+    int getWindow() {
+        return window;
+    }
+
+    int getPendingFrames() {
+        return pendingFrames.get();
+    }
+}
@@ -0,0 +1,104 @@
+package cl.tellevo.admin.websocket;
+
+import org.springframework.web.socket.TextMessage;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces venta frames for one session into JSON array frames.
+ *
+ * A batch is flushed when it reaches maxSize frames or maxDelayMs after its
+ * first frame arrived, whichever comes first, so batching never adds more
+ * than maxDelayMs of latency. Frames are already encoded, so building the
+ * array is plain string concatenation.
+ */
+final class VentaBatcher {
+
+    private final int maxSize;
+    private final long maxDelayMs;
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<TextMessage> sink;
+
+    // Guarded by this
+    private final StringBuilder buffer;
+    private int count;
+    private ScheduledFuture<?> pendingFlush;
+
+    VentaBatcher(int maxSize, long maxDelayMs, ScheduledExecutorService scheduler, Consumer<TextMessage> sink) {
+        this.maxSize = maxSize;
+        this.maxDelayMs = maxDelayMs;
+        this.scheduler = scheduler;
+        this.sink = sink;
+        this.buffer = new StringBuilder(256);
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    long getMaxDelayMs() {
+        return maxDelayMs;
+    }
+
+    /**
+     * @param frames ventas to send together, oldest first
+     * @return the same array frame add() would emit for them
+     */
+    static TextMessage encode(List<VentaFrame> frames) {
+        StringBuilder array = new StringBuilder(256);
+        for (VentaFrame frame : frames) {
+            array.append(array.length() == 0 ? '[' : ',').append(frame.getJson());
+        }
+        return new TextMessage(array.append(']').toString());
+    }
+
+    synchronized void add(VentaFrame frame) {
+        buffer.append(count == 0 ? '[' : ',').append(frame.getJson());
+        count++;
+
+        if (count >= maxSize) {
+            emit();
+        } else if (count == 1) {
+            pendingFlush = scheduler.schedule(this::flush, maxDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Emit whatever is buffered, if anything
+     */
+    synchronized void flush() {
+        if (count > 0) {
+            emit();
+        }
+    }
+
+    /**
+     * Drop the buffered frames and the pending timer
+     */
+    synchronized void cancel() {
+        buffer.setLength(0);
+        count = 0;
+        cancelTimer();
+    }
+
+    // The sink is a non-blocking queue offer, so it is called under the lock to keep batches in order
+    private void emit() {
+        buffer.append(']');
+        TextMessage batch = new TextMessage(buffer.toString());
+        buffer.setLength(0);
+        count = 0;
+        cancelTimer();
+        sink.accept(batch);
+    }
+
+    private void cancelTimer() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+    }
+}
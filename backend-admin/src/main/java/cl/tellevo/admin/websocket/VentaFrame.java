@@ -0,0 +1,58 @@
+package cl.tellevo.admin.websocket;
+
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * A venta encoded once for the whole broadcast. The JSON payload and the
+ * TextMessage wrapping it are immutable and shared by every session.
+ *
+ * The protobuf bytes for sessions using the binary subprotocol are encoded
+ * on first use and then shared the same way. Each send gets its own
+ * BinaryMessage over them: the container reads the message's ByteBuffer by
+ * advancing its position, so a shared buffer would be empty for every
+ * session after the first.
+ */
+public final class VentaFrame {
+
+    private final VentasResponse venta;
+    private final String json;
+    private final TextMessage textMessage;
+    private volatile byte[] protobuf;
+
+    VentaFrame(VentasResponse venta, String json) {
+        this.venta = venta;
+        this.json = json;
+        this.textMessage = new TextMessage(json);
+    }
+
+    public VentasResponse getVenta() {
+        return venta;
+    }
+
+    public int getId() {
+        return venta.getId();
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public TextMessage getTextMessage() {
+        return textMessage;
+    }
+
+    /**
+     * @return a new message over the venta's serialized VentasResponse protobuf bytes, for one send
+     */
+    public BinaryMessage getBinaryMessage() {
+        byte[] bytes = protobuf;
+        if (bytes == null) {
+            // Racing threads produce identical bytes, so a duplicate encode is harmless
+            bytes = venta.toByteArray();
+            protobuf = bytes;
+        }
+        return new BinaryMessage(bytes);
+    }
+}
@@ -0,0 +1,74 @@
+package cl.tellevo.admin.websocket;
+
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * Encodes VentasResponse messages straight to JSON with a streaming
+ * generator, skipping the intermediate Map and databind lookups.
+ */
+@Component
+public class VentaFrameEncoder {
+
+    // Field names are quoted and escaped once, not per message
+    private static final SerializedString FIELD_ID = new SerializedString("id");
+    private static final SerializedString FIELD_EMAIL = new SerializedString("email");
+    private static final SerializedString FIELD_NOMBRE_EMPRESA = new SerializedString("nombre_empresa");
+    private static final SerializedString FIELD_FECHA_ENVIO = new SerializedString("fecha_envio");
+
+    private static final int INITIAL_BUFFER_SIZE = 128;
+
+    private final JsonFactory jsonFactory;
+
+    @Autowired
+    public VentaFrameEncoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Encode a venta into a frame that can be shared by every session
+     * @param venta the venta received from gRPC
+     * @return immutable frame with the JSON payload
+     */
+    public VentaFrame encode(VentasResponse venta) {
+        StringWriter writer = new StringWriter(INITIAL_BUFFER_SIZE);
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            write(venta, generator);
+        } catch (IOException e) {
+            // StringWriter does not throw, so this only covers generator misuse
+            throw new UncheckedIOException("Failed to encode venta " + venta.getId(), e);
+        }
+        return new VentaFrame(venta, writer.toString());
+    }
+
+    /**
+     * Write a venta as a JSON object in the same shape as the WebSocket frames
+     * @param venta the venta to write
+     * @param generator generator positioned where a value may start
+     */
+    public void write(VentasResponse venta, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(FIELD_ID);
+        generator.writeNumber(venta.getId());
+        generator.writeFieldName(FIELD_EMAIL);
+        generator.writeString(venta.getEmail());
+        generator.writeFieldName(FIELD_NOMBRE_EMPRESA);
+        generator.writeString(venta.getNombreEmpresa());
+        generator.writeFieldName(FIELD_FECHA_ENVIO);
+        generator.writeString(venta.getFechaEnvio());
+        generator.writeEndObject();
+    }
+
+    public JsonFactory getJsonFactory() {
+        return jsonFactory;
+    }
+}
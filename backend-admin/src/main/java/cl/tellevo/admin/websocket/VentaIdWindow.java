@@ -0,0 +1,245 @@
+package cl.tellevo.admin.websocket;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Set of recently seen venta ids, used to drop upstream redeliveries.
+ *
+ * Ids are split Roaring-style into a container key (high 16 bits) and a
+ * 16-bit value. A container holds its values as a sorted short array until
+ * it reaches 4096 values, then as a 65536-bit bitmap (8 KiB), so dense runs
+ * of ids cost one bit each and sparse ones two bytes each. Containers live
+ * in a ring of fixed size, tagged with their key like the rollup buckets; a
+ * newer key recycles the slot of the key one horizon below it. Ids older
+ * than the horizon cannot be answered and are reported as new.
+ *
+ * Writes come from the single upstream delivery thread, so the lock is
+ * effectively uncontended.
+ */
+final class VentaIdWindow {
+
+    static final int IDS_PER_CONTAINER = 1 << 16;
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = IDS_PER_CONTAINER / 64;
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private final int[] keys;
+    private final int[] cardinalities;
+    private final short[][] arrays;
+    private final long[][] bitmaps;
+
+    private long duplicates;
+    private long beyondHorizon;
+
+    /**
+     * @param horizonIds how many consecutive ids to remember, rounded up to whole containers
+     */
+    VentaIdWindow(int horizonIds) {
+        int containers = Math.max(1, (int) ((Math.max(1L, horizonIds) + IDS_PER_CONTAINER - 1) / IDS_PER_CONTAINER));
+        this.keys = new int[containers];
+        this.cardinalities = new int[containers];
+        this.arrays = new short[containers][];
+        this.bitmaps = new long[containers][];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * @param id venta id
+     * @return false if the id was already seen within the horizon
+     */
+    synchronized boolean add(int id) {
+        int key = id >> 16;
+        int value = id & 0xFFFF;
+        int slot = Math.floorMod(key, keys.length);
+
+        if (keys[slot] != key) {
+            if (keys[slot] != EMPTY && keys[slot] > key) {
+                beyondHorizon++;
+                return true;
+            }
+            // Recycle the slot; the array buffer is kept, a bitmap is released
+            keys[slot] = key;
+            cardinalities[slot] = 0;
+            bitmaps[slot] = null;
+        }
+
+        long[] bitmap = bitmaps[slot];
+        if (bitmap != null) {
+            long mask = 1L << value;
+            if ((bitmap[value >>> 6] & mask) != 0) {
+                duplicates++;
+                return false;
+            }
+            bitmap[value >>> 6] |= mask;
+            cardinalities[slot]++;
+            return true;
+        }
+
+        short[] array = arrays[slot];
+        int size = cardinalities[slot];
+        int position;
+        if (size == 0 || (array[size - 1] & 0xFFFF) < value) {
+            // Ids mostly arrive in increasing order: append without searching
+            position = size;
+        } else {
+            position = search(array, size, value);
+            if (position < 0) {
+                duplicates++;
+                return false;
+            }
+        }
+
+        if (size == ARRAY_MAX) {
+            bitmap = new long[BITMAP_WORDS];
+            for (int i = 0; i < size; i++) {
+                int existing = array[i] & 0xFFFF;
+                bitmap[existing >>> 6] |= 1L << existing;
+            }
+            bitmap[value >>> 6] |= 1L << value;
+            bitmaps[slot] = bitmap;
+            arrays[slot] = null;
+            cardinalities[slot]++;
+            return true;
+        }
+
+        if (array == null || size == array.length) {
+            short[] grown = new short[Math.min(ARRAY_MAX, Math.max(16, size * 2))];
+            if (array != null) {
+                System.arraycopy(array, 0, grown, 0, size);
+            }
+            array = grown;
+            arrays[slot] = array;
+        }
+        System.arraycopy(array, position, array, position + 1, size - position);
+        array[position] = (short) value;
+        cardinalities[slot]++;
+        return true;
+    }
+
+    synchronized long getDuplicates() {
+        return duplicates;
+    }
+
+    synchronized long getBeyondHorizon() {
+        return beyondHorizon;
+    }
+
+    /**
+     * @return number of ids held
+     */
+    synchronized long size() {
+        long total = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                total += cardinalities[slot];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return heap used by the containers, in bytes
+     */
+    synchronized long getMemoryBytes() {
+        long bytes = keys.length * 4L * 2;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (bitmaps[slot] != null) {
+                bytes += BITMAP_WORDS * 8L;
+            } else if (arrays[slot] != null) {
+                bytes += arrays[slot].length * 2L;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return number of ids the window can remember
+     */
+    long getHorizonIds() {
+        return (long) keys.length * IDS_PER_CONTAINER;
+    }
+
+    synchronized void writeTo(DataOutput out) throws IOException {
+        int used = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                used++;
+            }
+        }
+        out.writeInt(used);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] == EMPTY) {
+                continue;
+            }
+            out.writeInt(keys[slot]);
+            if (bitmaps[slot] != null) {
+                out.writeBoolean(true);
+                for (long word : bitmaps[slot]) {
+                    out.writeLong(word);
+                }
+            } else {
+                out.writeBoolean(false);
+                out.writeInt(cardinalities[slot]);
+                for (int i = 0; i < cardinalities[slot]; i++) {
+                    out.writeShort(arrays[slot][i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the ids written by writeTo; works across horizon changes
+     * @throws IOException if the data is corrupt
+     */
+    synchronized void readFrom(DataInput in) throws IOException {
+        int containers = in.readInt();
+        if (containers < 0) {
+            throw new IOException("Negative container count " + containers);
+        }
+        for (int c = 0; c < containers; c++) {
+            int high = in.readInt() << 16;
+            if (in.readBoolean()) {
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    long bits = in.readLong();
+                    while (bits != 0) {
+                        add(high | (word << 6) | Long.numberOfTrailingZeros(bits));
+                        bits &= bits - 1;
+                    }
+                }
+            } else {
+                int size = in.readInt();
+                if (size < 0 || size > ARRAY_MAX) {
+                    throw new IOException("Invalid container size " + size);
+                }
+                for (int i = 0; i < size; i++) {
+                    add(high | (in.readShort() & 0xFFFF));
+                }
+            }
+        }
+    }
+
+    /**
+     * Binary search over unsigned shorts
+     * @return insertion point, or -1 if value is present
+     */
+    private static int search(short[] array, int size, int value) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int current = array[middle] & 0xFFFF;
+            if (current < value) {
+                low = middle + 1;
+            } else if (current > value) {
+                high = middle - 1;
+            } else {
+                return -1;
+            }
+        }
+        return low;
+    }
+}
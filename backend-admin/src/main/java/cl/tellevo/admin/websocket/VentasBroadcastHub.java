@@ -0,0 +1,587 @@
+package cl.tellevo.admin.websocket;
+
+import cl.tellevo.admin.config.VentasStreamConfig;
+import cl.tellevo.admin.dto.VentasSessionStats;
+import cl.tellevo.admin.grpc.ventas.VentasRequest;
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import cl.tellevo.admin.service.VentasEventListener;
+import cl.tellevo.admin.service.VentasGrpcClient;
+import cl.tellevo.admin.service.VentasIngestLock;
+import cl.tellevo.admin.service.VentasSnapshotParticipant;
+import cl.tellevo.admin.service.ReconnectingVentasStream;
+import cl.tellevo.admin.service.VentasStreamStateListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shares a single upstream StreamVentas call among every WebSocket session
+ * connected to /ws/ventas.
+ *
+ * The upstream call is opened when the first session registers and cancelled
+ * when the last one leaves, so the ventas service sees one subscriber and each
+ * VentasResponse is decoded once regardless of how many dashboards are open.
+ * VentasEventListener beans (event log, aggregates' reorder buffer) also receive every venta;
+ * while any exist the call is opened at startup and kept open without sessions.
+ * Ids already seen within ventas.stream.dedup-horizon-ids (VentaIdWindow) are
+ * dropped before anything else sees them, so redeliveries after a reconnect
+ * are not counted twice. The seen ids are part of the aggregate snapshot;
+ * the check and the listeners run under the VentasIngestLock so a snapshot
+ * never sees a venta as seen but not yet handed to the listeners.
+ * If the ventas service goes away the call is retried with backoff while the
+ * sessions stay open; they receive {"type":"status","state":"degraded"} frames
+ * until the stream is live again.
+ *
+ * Delivery never happens on the gRPC callback thread: every session gets a
+ * bounded SessionOutbound queue drained by its own writer task. The upstream
+ * call uses manual flow control (UpstreamDemand), so new ventas are only
+ * requested while those queues have room.
+ *
+ * Clients may opt into batched delivery at connect time with
+ * /ws/ventas?batchSize=N&batchMs=T; ventas then arrive as JSON arrays flushed
+ * after N events or T milliseconds. Without those parameters every venta is
+ * its own frame.
+ *
+ * The last ventas are kept in a VentasReplayBuffer. New sessions receive a
+ * backlog of them right away (?backlog=N overrides the configured size), and
+ * a reconnecting client can connect with ?backlog=0 and send
+ * {"type":"resume","lastId":X} to receive only what it missed.
+ *
+ * Sessions can narrow what they receive with {"type":"subscribe","filter":{...}}
+ * (see VentasFilter). Live ventas are routed through VentasRoutingIndex, so a
+ * venta only reaches sessions watching its empresa plus unfiltered ones.
+ *
+ * Sessions that negotiate the "ventas.protobuf.v1" subprotocol receive each
+ * venta as a serialized VentasResponse in a binary frame; control messages
+ * stay JSON text frames.
+ */
+@Component
+public class VentasBroadcastHub implements VentasSnapshotParticipant {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentasBroadcastHub.class);
+
+    private final VentasGrpcClient grpcClient;
+    private final ObjectMapper objectMapper;
+    private final VentaFrameEncoder frameEncoder;
+    private final VentasStreamConfig streamConfig;
+    private final List<VentasEventListener> eventListeners;
+    private final VentasIngestLock ingestLock;
+    private final Map<String, SessionOutbound> sessions;
+    private final ExecutorService writerExecutor;
+    private final ScheduledExecutorService batchScheduler;
+    private final VentasReplayBuffer replayBuffer;
+    private final UpstreamDemand demand;
+    private final VentasRoutingIndex routingIndex = new VentasRoutingIndex();
+    // Null when de-duplication is disabled
+    private volatile VentaIdWindow seenIds;
+    private final Object lock = new Object();
+    // Held while appending to the replay buffer and fanning out, so a session's
+    // backlog and its first live frame never overlap or leave a gap
+    private final Object deliveryLock = new Object();
+
+    // Guarded by lock
+    private ReconnectingVentasStream upstream;
+    // Last degraded status, sent to sessions that join while the stream is down
+    private volatile TextMessage degradedFrame;
+
+    @Autowired
+    public VentasBroadcastHub(VentasGrpcClient grpcClient, ObjectMapper objectMapper,
+                              VentaFrameEncoder frameEncoder, VentasStreamConfig streamConfig,
+                              ObjectProvider<VentasEventListener> eventListeners, VentasIngestLock ingestLock) {
+        this.grpcClient = grpcClient;
+        this.objectMapper = objectMapper;
+        this.frameEncoder = frameEncoder;
+        this.streamConfig = streamConfig;
+        this.eventListeners = eventListeners.orderedStream().toList();
+        this.ingestLock = ingestLock;
+        this.sessions = new ConcurrentHashMap<>();
+        this.replayBuffer = new VentasReplayBuffer(streamConfig.getReplayCapacity());
+        this.seenIds = streamConfig.getDedupHorizonIds() > 0 ? new VentaIdWindow(streamConfig.getDedupHorizonIds()) : null;
+        this.demand = new UpstreamDemand(streamConfig.getFlowControlWindow());
+
+        // Writers only hold a thread while their session has pending frames
+        AtomicInteger writerCount = new AtomicInteger();
+        this.writerExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ventas-ws-writer-" + writerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ventas-ws-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Add a session to the broadcast, subscribing upstream if it is the first one
+     * @param session the WebSocket session to receive ventas
+     */
+    public void register(WebSocketSession session) {
+        MultiValueMap<String, String> params = queryParams(session);
+        synchronized (lock) {
+            SessionOutbound outbound = createOutbound(session, params);
+            int backlog = parseParam(params.getFirst("backlog"), streamConfig.getReplayBacklog(), replayBuffer.getCapacity());
+
+            synchronized (deliveryLock) {
+                for (VentaFrame frame : replayBuffer.latest(Math.min(backlog, streamConfig.getOutboundQueueCapacity()))) {
+                    outbound.offerVenta(frame);
+                }
+                TextMessage status = degradedFrame;
+                if (status != null) {
+                    outbound.offerControl(status);
+                }
+                sessions.put(session.getId(), outbound);
+                routingIndex.rebuild(sessions.values());
+            }
+            logger.info("Session {} registered in ventas hub ({} active)", session.getId(), sessions.size());
+
+            if (upstream == null) {
+                subscribe();
+            }
+        }
+    }
+
+    /**
+     * Open the upstream call once the application is up if listeners need every venta
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribeForListeners() {
+        if (eventListeners.isEmpty()) {
+            return;
+        }
+        synchronized (lock) {
+            if (upstream == null) {
+                logger.info("Subscribing to ventas for {} event listener(s)", eventListeners.size());
+                subscribe();
+            }
+        }
+    }
+
+    /**
+     * Remove a session from the broadcast, cancelling upstream if it was the last one
+     * @param session the WebSocket session that left
+     */
+    public void unregister(WebSocketSession session) {
+        synchronized (lock) {
+            SessionOutbound outbound;
+            synchronized (deliveryLock) {
+                outbound = sessions.remove(session.getId());
+                if (outbound == null) {
+                    return;
+                }
+                routingIndex.rebuild(sessions.values());
+            }
+            outbound.discard();
+            logger.info("Session {} unregistered from ventas hub ({} active)", session.getId(), sessions.size());
+
+            if (sessions.isEmpty() && eventListeners.isEmpty()) {
+                unsubscribe();
+            }
+        }
+    }
+
+    /**
+     * Replay the ventas a reconnecting client missed
+     * @param session the session asking to resume
+     * @param lastId id of the last venta the client received before disconnecting
+     */
+    public void resume(WebSocketSession session, int lastId) {
+        SessionOutbound outbound = sessions.get(session.getId());
+        if (outbound == null) {
+            return;
+        }
+
+        synchronized (deliveryLock) {
+            List<VentaFrame> gap = replayBuffer.after(lastId);
+            // An id that fell out of the ring means the gap is larger than what we kept
+            boolean complete = gap != null;
+            if (gap == null) {
+                gap = replayBuffer.latest(replayBuffer.getCapacity());
+            }
+
+            VentasFilter filter = outbound.getFilter();
+            List<VentaFrame> matching = new ArrayList<>(gap.size());
+            for (VentaFrame frame : gap) {
+                if (filter.matches(frame.getVenta())) {
+                    matching.add(frame);
+                }
+            }
+            // Replay only fills the queue's free space, so nothing queued is evicted
+            // and every venta counted as replayed is actually sent
+            int replayed = outbound.replay(matching);
+            if (replayed < matching.size()) {
+                complete = false;
+            }
+
+            Map<String, Object> status = Map.of(
+                "type", "resume",
+                "lastId", lastId,
+                "replayed", replayed,
+                "complete", complete
+            );
+            TextMessage statusFrame = controlFrame(status);
+            if (statusFrame != null) {
+                outbound.offerControl(statusFrame);
+            }
+            logger.info("Session {} resumed after venta {}: {} replayed (complete: {})",
+                session.getId(), lastId, replayed, complete);
+        }
+    }
+
+    /**
+     * Replace the session's subscription filter
+     * @param session the session sending the subscribe message
+     * @param filter the compiled filter, VentasFilter.ALL to receive everything
+     */
+    void subscribe(WebSocketSession session, VentasFilter filter) {
+        SessionOutbound outbound = sessions.get(session.getId());
+        if (outbound == null) {
+            return;
+        }
+
+        synchronized (deliveryLock) {
+            outbound.setFilter(filter);
+            routingIndex.rebuild(sessions.values());
+        }
+        logger.info("Session {} subscribed with filter {}", session.getId(), filter.describe());
+
+        TextMessage ack = controlFrame(Map.of(
+            "type", "subscribed",
+            "filter", filter.describe()
+        ));
+        if (ack != null) {
+            outbound.offerControl(ack);
+        }
+    }
+
+    /**
+     * Tell a session its last message could not be processed
+     */
+    void rejectMessage(WebSocketSession session, String reason) {
+        SessionOutbound outbound = sessions.get(session.getId());
+        TextMessage error = controlFrame(Map.of(
+            "type", "error",
+            "message", reason,
+            "timestamp", System.currentTimeMillis()
+        ));
+        if (outbound != null && error != null) {
+            outbound.offerControl(error);
+        }
+    }
+
+    /**
+     * Send a JSON control message to every session, behind any ventas already queued
+     * @param message the message; must carry a "type" so clients can tell it from a venta
+     */
+    void publish(Map<String, Object> message) {
+        broadcastControl(controlFrame(message));
+    }
+
+    /**
+     * @return number of sessions currently receiving the broadcast
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return queue depth and delivery counters for every registered session
+     */
+    public List<VentasSessionStats> getSessionStats() {
+        List<VentasSessionStats> stats = new ArrayList<>(sessions.size());
+        for (SessionOutbound outbound : sessions.values()) {
+            stats.add(outbound.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * @return true if the shared upstream call is open
+     */
+    public boolean isSubscribed() {
+        synchronized (lock) {
+            return upstream != null;
+        }
+    }
+
+    /**
+     * @return state of the upstream flow control window
+     */
+    public Map<String, Object> getFlowControlStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("window", demand.getWindow());
+        stats.put("pendingFrames", demand.getPendingFrames());
+        stats.put("fillRatio", demand.fillRatio());
+        return stats;
+    }
+
+    /**
+     * @return duplicate ids dropped and size of the seen-id window
+     */
+    public Map<String, Object> getDedupStats() {
+        VentaIdWindow ids = seenIds;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", ids != null);
+        if (ids != null) {
+            stats.put("duplicates", ids.getDuplicates());
+            stats.put("beyondHorizon", ids.getBeyondHorizon());
+            stats.put("idsTracked", ids.size());
+            stats.put("horizonIds", ids.getHorizonIds());
+            stats.put("memoryBytes", ids.getMemoryBytes());
+        }
+        return stats;
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return "venta-ids";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        VentaIdWindow ids = seenIds;
+        out.writeBoolean(ids != null);
+        if (ids != null) {
+            ids.writeTo(out);
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(DataInput in) throws IOException {
+        if (!in.readBoolean() || seenIds == null) {
+            return;
+        }
+        VentaIdWindow restored = new VentaIdWindow(streamConfig.getDedupHorizonIds());
+        restored.readFrom(in);
+        seenIds = restored;
+    }
+
+    /**
+     * @return true while the upstream call is down and being retried
+     */
+    public boolean isDegraded() {
+        return degradedFrame != null;
+    }
+
+    private static MultiValueMap<String, String> queryParams(WebSocketSession session) {
+        if (session.getUri() == null) {
+            return new LinkedMultiValueMap<>();
+        }
+        return UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+    }
+
+    private SessionOutbound createOutbound(WebSocketSession session, MultiValueMap<String, String> params) {
+        SessionOutbound outbound = new SessionOutbound(
+            session,
+            streamConfig.getOutboundQueueCapacity(),
+            streamConfig.getSlowConsumerPolicy(),
+            writerExecutor,
+            demand
+        );
+
+        if (VentasWebSocketHandler.PROTOBUF_SUBPROTOCOL.equals(session.getAcceptedProtocol())) {
+            outbound.useBinaryFrames();
+            logger.info("Session {} uses binary protobuf delivery", session.getId());
+            return outbound;
+        }
+
+        int batchSize = parseParam(params.getFirst("batchSize"), 1, streamConfig.getMaxBatchSize());
+        long batchMs = parseParam(params.getFirst("batchMs"), 0, (int) streamConfig.getMaxBatchMs());
+        if (batchSize > 1 && batchMs > 0) {
+            outbound.enableBatching(batchSize, batchMs, batchScheduler);
+            logger.info("Session {} uses batched delivery: {} ventas / {} ms", session.getId(), batchSize, batchMs);
+        }
+        return outbound;
+    }
+
+    private static int parseParam(String value, int defaultValue, int max) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Math.min(Integer.parseInt(value.trim()), max));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private void subscribe() {
+        logger.info("🚀 Opening shared gRPC ventas stream for {} session(s)", sessions.size());
+        upstream = grpcClient.streamVentasReconnecting(new UpstreamObserver(), new UpstreamStateListener());
+    }
+
+    private void unsubscribe() {
+        ReconnectingVentasStream stream = upstream;
+        upstream = null;
+        degradedFrame = null;
+        demand.detach();
+        if (stream != null) {
+            logger.info("No WebSocket sessions left, cancelling shared gRPC ventas stream");
+            stream.cancel();
+        }
+    }
+
+    private void broadcast(VentasResponse venta) {
+        ingestLock.lock();
+        try {
+            VentaIdWindow ids = seenIds;
+            if (ids != null && !ids.add(venta.getId())) {
+                logger.debug("Dropping duplicate venta {} from upstream", venta.getId());
+                return;
+            }
+
+            logger.info("🔥 RECEIVED gRPC VENTA: ID={}, Email={}, Empresa={}, Fecha={}",
+                venta.getId(),
+                venta.getEmail(),
+                venta.getNombreEmpresa(),
+                venta.getFechaEnvio()
+            );
+
+            for (VentasEventListener listener : eventListeners) {
+                try {
+                    listener.onVenta(venta);
+                } catch (RuntimeException e) {
+                    logger.error("Ventas event listener {} failed for venta {}", listener.getClass().getSimpleName(),
+                        venta.getId(), e);
+                }
+            }
+        } finally {
+            ingestLock.unlock();
+        }
+
+        // Encode once; every session queues the same immutable frame
+        VentaFrame frame = frameEncoder.encode(venta);
+        synchronized (deliveryLock) {
+            replayBuffer.append(frame);
+            deliver(routingIndex.unscoped(), frame);
+            deliver(routingIndex.forEmpresa(venta.getNombreEmpresa()), frame);
+        }
+    }
+
+    private static void deliver(SessionOutbound[] targets, VentaFrame frame) {
+        for (SessionOutbound outbound : targets) {
+            if (outbound.getFilter().matchesRemaining(frame.getVenta())) {
+                outbound.offerVenta(frame);
+            }
+        }
+    }
+
+    private TextMessage controlFrame(Map<String, Object> message) {
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(message));
+        } catch (IOException e) {
+            logger.error("Error encoding WebSocket control message {}", message, e);
+            return null;
+        }
+    }
+
+    private void broadcastControl(TextMessage frame) {
+        if (frame == null) {
+            return;
+        }
+        synchronized (deliveryLock) {
+            for (SessionOutbound outbound : sessions.values()) {
+                outbound.offerControl(frame);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (lock) {
+            unsubscribe();
+        }
+        batchScheduler.shutdownNow();
+        writerExecutor.shutdownNow();
+    }
+
+    /**
+     * Receives ventas from whichever upstream call is current and asks for
+     * more only as the listeners keep up.
+     */
+    private final class UpstreamObserver implements ClientResponseObserver<VentasRequest, VentasResponse> {
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<VentasRequest> requestStream) {
+            // Called for every (re)connect attempt
+            demand.attach(requestStream);
+        }
+
+        @Override
+        public void onNext(VentasResponse venta) {
+            broadcast(venta);
+            demand.onMessageProcessed();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            // ReconnectingVentasStream reports failures through UpstreamStateListener
+        }
+
+        @Override
+        public void onCompleted() {
+            // ReconnectingVentasStream never completes while subscribed
+        }
+    }
+
+    /**
+     * Tells the browsers when the upstream stream degrades and recovers, without
+     * closing their sessions.
+     */
+    private final class UpstreamStateListener implements VentasStreamStateListener {
+
+        @Override
+        public void onDegraded(int attempt, long retryInMs, Throwable cause) {
+            logger.error("🚨 Shared gRPC ventas stream degraded (attempt {}): {}",
+                attempt, cause != null ? cause.getMessage() : "completed by server");
+            TextMessage frame = controlFrame(Map.of(
+                "type", "status",
+                "state", "degraded",
+                "attempt", attempt,
+                "retryInMs", retryInMs,
+                "message", "gRPC server unavailable: " + (cause != null ? cause.getMessage() : "stream completed"),
+                "timestamp", System.currentTimeMillis()
+            ));
+            degradedFrame = frame;
+            broadcastControl(frame);
+        }
+
+        @Override
+        public void onRestored() {
+            logger.info("Shared gRPC ventas stream is live again");
+            degradedFrame = null;
+            broadcastControl(controlFrame(Map.of(
+                "type", "status",
+                "state", "live",
+                "timestamp", System.currentTimeMillis()
+            )));
+        }
+    }
+}
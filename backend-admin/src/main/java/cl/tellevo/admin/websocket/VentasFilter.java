@@ -0,0 +1,153 @@
+package cl.tellevo.admin.websocket;
+
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled subscription filter for a /ws/ventas session.
+ *
+ * Clients send {"type":"subscribe","filter":{...}} with any of:
+ * - "empresas": list of nombre_empresa values to receive
+ * - "emailDomain": buyer email domain, e.g. "empresa.cl" or "@empresa.cl"
+ * - "idFrom" / "idTo": inclusive venta id range
+ *
+ * The empresa constraint is not evaluated here: VentasRoutingIndex uses it
+ * to pick candidate sessions, and matches() only checks the rest.
+ */
+final class VentasFilter {
+
+    static final VentasFilter ALL = new VentasFilter(Collections.emptySet(), null, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    private static final Set<String> FIELDS = Set.of("empresas", "emailDomain", "idFrom", "idTo");
+
+    private final Set<String> empresas;
+    private final String emailDomainSuffix;
+    private final int idFrom;
+    private final int idTo;
+
+    private VentasFilter(Set<String> empresas, String emailDomainSuffix, int idFrom, int idTo) {
+        this.empresas = empresas;
+        this.emailDomainSuffix = emailDomainSuffix;
+        this.idFrom = idFrom;
+        this.idTo = idTo;
+    }
+
+    /**
+     * Compile the "filter" object of a subscribe message
+     * @param filter the JSON filter, or null/missing/{} for no filtering
+     * @return the compiled filter
+     * @throws IllegalArgumentException if the filter is malformed; it is never widened to ALL
+     */
+    static VentasFilter fromJson(JsonNode filter) {
+        if (filter == null || filter.isNull() || filter.isMissingNode()) {
+            return ALL;
+        }
+        if (!filter.isObject()) {
+            throw new IllegalArgumentException("filter must be an object");
+        }
+        if (filter.isEmpty()) {
+            return ALL;
+        }
+        filter.fieldNames().forEachRemaining(field -> {
+            if (!FIELDS.contains(field)) {
+                throw new IllegalArgumentException("unknown filter field '" + field + "'");
+            }
+        });
+
+        Set<String> empresas = new LinkedHashSet<>();
+        JsonNode empresasNode = filter.get("empresas");
+        if (empresasNode != null && !empresasNode.isNull()) {
+            if (!empresasNode.isArray()) {
+                throw new IllegalArgumentException("empresas must be an array of strings");
+            }
+            for (JsonNode empresa : empresasNode) {
+                if (!empresa.isTextual() || empresa.asText().isBlank()) {
+                    throw new IllegalArgumentException("empresas must be an array of strings");
+                }
+                empresas.add(empresa.asText().trim());
+            }
+        }
+
+        String emailDomainSuffix = null;
+        JsonNode domainNode = filter.get("emailDomain");
+        if (domainNode != null && !domainNode.isNull()) {
+            if (!domainNode.isTextual()) {
+                throw new IllegalArgumentException("emailDomain must be a string");
+            }
+            String domain = domainNode.asText().trim().toLowerCase(Locale.ROOT);
+            if (domain.isEmpty()) {
+                throw new IllegalArgumentException("emailDomain must not be empty");
+            }
+            emailDomainSuffix = domain.startsWith("@") ? domain : "@" + domain;
+        }
+
+        int idFrom = readId(filter.get("idFrom"), "idFrom", Integer.MIN_VALUE);
+        int idTo = readId(filter.get("idTo"), "idTo", Integer.MAX_VALUE);
+        if (idFrom > idTo) {
+            throw new IllegalArgumentException("idFrom must not be greater than idTo");
+        }
+
+        return new VentasFilter(Collections.unmodifiableSet(empresas), emailDomainSuffix, idFrom, idTo);
+    }
+
+    private static int readId(JsonNode node, String name, int defaultValue) {
+        if (node == null || node.isNull()) {
+            return defaultValue;
+        }
+        if (!node.canConvertToInt()) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+        return node.asInt();
+    }
+
+    /**
+     * @return empresas this filter is restricted to, empty for any empresa
+     */
+    Set<String> getEmpresas() {
+        return empresas;
+    }
+
+    /**
+     * Check a venta against everything except the empresa constraint
+     */
+    boolean matchesRemaining(VentasResponse venta) {
+        int id = venta.getId();
+        if (id < idFrom || id > idTo) {
+            return false;
+        }
+        return emailDomainSuffix == null || endsWithIgnoreCase(venta.getEmail(), emailDomainSuffix);
+    }
+
+    /**
+     * Full check, used for replayed frames that did not go through the routing index
+     */
+    boolean matches(VentasResponse venta) {
+        return (empresas.isEmpty() || empresas.contains(venta.getNombreEmpresa())) && matchesRemaining(venta);
+    }
+
+    Map<String, Object> describe() {
+        Map<String, Object> description = new HashMap<>();
+        description.put("empresas", empresas);
+        if (emailDomainSuffix != null) {
+            description.put("emailDomain", emailDomainSuffix);
+        }
+        if (idFrom != Integer.MIN_VALUE) {
+            description.put("idFrom", idFrom);
+        }
+        if (idTo != Integer.MAX_VALUE) {
+            description.put("idTo", idTo);
+        }
+        return description;
+    }
+
+    private static boolean endsWithIgnoreCase(String value, String suffix) {
+        return value.regionMatches(true, value.length() - suffix.length(), suffix, 0, suffix.length());
+    }
+}
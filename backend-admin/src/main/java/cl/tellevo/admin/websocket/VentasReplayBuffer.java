@@ -0,0 +1,70 @@
+package cl.tellevo.admin.websocket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fixed-size ring of the most recent venta frames, preallocated at startup.
+ *
+ * New sessions get the tail of the ring as an initial backlog and
+ * reconnecting clients get the frames that arrived after the last id they
+ * saw. Appends overwrite the oldest slot, so memory stays constant.
+ */
+final class VentasReplayBuffer {
+
+    private final VentaFrame[] ring;
+
+    // Guarded by this; total number of frames ever appended
+    private long appended;
+
+    VentasReplayBuffer(int capacity) {
+        this.ring = new VentaFrame[Math.max(1, capacity)];
+    }
+
+    int getCapacity() {
+        return ring.length;
+    }
+
+    synchronized void append(VentaFrame frame) {
+        ring[(int) (appended % ring.length)] = frame;
+        appended++;
+    }
+
+    synchronized int size() {
+        return (int) Math.min(appended, ring.length);
+    }
+
+    /**
+     * @param count maximum number of frames to return
+     * @return the newest frames, oldest first
+     */
+    synchronized List<VentaFrame> latest(int count) {
+        int n = Math.min(count, size());
+        if (n <= 0) {
+            return Collections.emptyList();
+        }
+        List<VentaFrame> frames = new ArrayList<>(n);
+        for (long seq = appended - n; seq < appended; seq++) {
+            frames.add(ring[(int) (seq % ring.length)]);
+        }
+        return frames;
+    }
+
+    /**
+     * Find the frames that arrived after the venta with the given id
+     * @param lastId id of the last venta the client saw
+     * @return the newer frames, oldest first, or null if the id is no longer in the ring
+     */
+    synchronized List<VentaFrame> after(int lastId) {
+        int size = size();
+        // Newest first: a reconnecting client is usually only a few frames behind
+        for (int back = 1; back <= size; back++) {
+            VentaFrame frame = ring[(int) ((appended - back) % ring.length)];
+            if (frame.getId() == lastId) {
+                return latest(back - 1);
+            }
+        }
+        return null;
+    }
+}
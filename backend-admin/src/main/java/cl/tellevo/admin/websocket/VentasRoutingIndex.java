@@ -0,0 +1,67 @@
+package cl.tellevo.admin.websocket;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes ventas to sessions by nombre_empresa without scanning every session.
+ *
+ * Sessions whose filter names empresas are indexed under each of them; the
+ * rest are "unscoped" and get every venta. Subscriptions change rarely and
+ * every venta reads the index, so updates rebuild an immutable snapshot that
+ * readers pick up through a volatile field without locking.
+ */
+final class VentasRoutingIndex {
+
+    private static final SessionOutbound[] NONE = new SessionOutbound[0];
+
+    private static final class Snapshot {
+        final SessionOutbound[] unscoped;
+        final Map<String, SessionOutbound[]> byEmpresa;
+
+        Snapshot(SessionOutbound[] unscoped, Map<String, SessionOutbound[]> byEmpresa) {
+            this.unscoped = unscoped;
+            this.byEmpresa = byEmpresa;
+        }
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(NONE, Map.of());
+
+    /**
+     * Rebuild the index from the current sessions and their filters
+     */
+    synchronized void rebuild(Collection<SessionOutbound> sessions) {
+        List<SessionOutbound> unscoped = new ArrayList<>();
+        Map<String, List<SessionOutbound>> byEmpresa = new HashMap<>();
+
+        for (SessionOutbound outbound : sessions) {
+            VentasFilter filter = outbound.getFilter();
+            if (filter.getEmpresas().isEmpty()) {
+                unscoped.add(outbound);
+            } else {
+                for (String empresa : filter.getEmpresas()) {
+                    byEmpresa.computeIfAbsent(empresa, key -> new ArrayList<>()).add(outbound);
+                }
+            }
+        }
+
+        Map<String, SessionOutbound[]> frozen = new HashMap<>(byEmpresa.size() * 2);
+        byEmpresa.forEach((empresa, targets) -> frozen.put(empresa, targets.toArray(NONE)));
+        snapshot = new Snapshot(unscoped.toArray(NONE), frozen);
+    }
+
+    SessionOutbound[] unscoped() {
+        return snapshot.unscoped;
+    }
+
+    SessionOutbound[] forEmpresa(String nombreEmpresa) {
+        return snapshot.byEmpresa.getOrDefault(nombreEmpresa, NONE);
+    }
+
+    int indexedEmpresas() {
+        return snapshot.byEmpresa.size();
+    }
+}
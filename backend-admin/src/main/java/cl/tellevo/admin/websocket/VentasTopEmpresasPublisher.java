@@ -0,0 +1,76 @@
+package cl.tellevo.admin.websocket;
+
+import cl.tellevo.admin.config.VentasAggregationConfig;
+import cl.tellevo.admin.service.VentasTopEmpresasService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes the top empresas leaderboard to /ws/ventas sessions every
+ * ventas.aggregation.top-push-interval-ms as
+ * {"type":"topEmpresas","leaderboard":{...}}. Nothing is sent while no
+ * session is connected; 0 disables the push.
+ */
+@Component
+public class VentasTopEmpresasPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentasTopEmpresasPublisher.class);
+
+    private final VentasBroadcastHub broadcastHub;
+    private final VentasTopEmpresasService topEmpresasService;
+    private final VentasAggregationConfig aggregationConfig;
+    private final ScheduledExecutorService scheduler;
+
+    @Autowired
+    public VentasTopEmpresasPublisher(VentasBroadcastHub broadcastHub, VentasTopEmpresasService topEmpresasService,
+                                      VentasAggregationConfig aggregationConfig) {
+        this.broadcastHub = broadcastHub;
+        this.topEmpresasService = topEmpresasService;
+        this.aggregationConfig = aggregationConfig;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ventas-ws-top-empresas");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = aggregationConfig.getTopPushIntervalMs();
+        if (interval <= 0) {
+            logger.info("Top empresas push disabled");
+            return;
+        }
+        scheduler.scheduleAtFixedRate(this::publish, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void publish() {
+        try {
+            if (broadcastHub.getSessionCount() == 0) {
+                return;
+            }
+            broadcastHub.publish(Map.of(
+                "type", "topEmpresas",
+                "leaderboard", topEmpresasService.getTopEmpresas(),
+                "timestamp", System.currentTimeMillis()
+            ));
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; a failed push only skips one tick
+            logger.error("Failed to push top empresas leaderboard", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
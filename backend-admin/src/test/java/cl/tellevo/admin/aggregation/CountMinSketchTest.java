@@ -0,0 +1,109 @@
+package cl.tellevo.admin.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountMinSketchTest {
+
+    @Test
+    void neverUnderestimatesAndMostlyStaysWithinBound() {
+        CountMinSketch sketch = new CountMinSketch(2048, 5);
+        Map<String, Long> counts = new HashMap<>();
+        // Zipf-like: empresa i gets about 20000 / i ventas
+        for (int i = 1; i <= 5000; i++) {
+            String key = "Empresa " + i;
+            long count = Math.max(1, 20000 / i);
+            for (long n = 0; n < count; n++) {
+                sketch.add(key);
+            }
+            counts.put(key, count);
+        }
+
+        long bound = (long) Math.ceil(sketch.getEpsilon() * sketch.getTotal());
+        int beyondBound = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertThat(estimate).as(entry.getKey()).isGreaterThanOrEqualTo(entry.getValue());
+            if (estimate - entry.getValue() > bound) {
+                beyondBound++;
+            }
+        }
+        // delta = e^-5 is about 0.7% of the keys
+        assertThat(beyondBound).isLessThanOrEqualTo(counts.size() / 50);
+    }
+
+    @Test
+    void keysWithEqualHashCodeAreCountedApart() {
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+        assertThat("AaAa".hashCode()).isEqualTo("BBBB".hashCode());
+
+        CountMinSketch sketch = new CountMinSketch(2048, 5);
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("Aa");
+            sketch.add("AaAa");
+        }
+        assertThat(sketch.estimate("Aa")).isEqualTo(1000);
+        assertThat(sketch.estimate("BB")).isZero();
+        assertThat(sketch.estimate("BBBB")).isZero();
+        assertThat(sketch.estimate("AaBB")).isZero();
+    }
+
+    @Test
+    void addReturnsUpdatedEstimate() {
+        CountMinSketch sketch = new CountMinSketch(64, 3);
+        assertThat(sketch.add("")).isEqualTo(1);
+        assertThat(sketch.add("")).isEqualTo(2);
+        assertThat(sketch.add("Empresa con nombre largo y ñ")).isEqualTo(1);
+        assertThat(sketch.getTotal()).isEqualTo(3);
+    }
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        CountMinSketch sketch = new CountMinSketch(256, 4);
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("Empresa " + (i % 37));
+        }
+
+        CountMinSketch restored = new CountMinSketch(256, 4);
+        restored.readFrom(input(write(sketch)));
+        assertThat(restored.getTotal()).isEqualTo(1000);
+        for (int i = 0; i < 37; i++) {
+            assertThat(restored.estimate("Empresa " + i)).isEqualTo(sketch.estimate("Empresa " + i));
+        }
+    }
+
+    @Test
+    void rejectsOtherDimensionsOrOldFormat() throws IOException {
+        byte[] written = write(new CountMinSketch(256, 4));
+        assertThatThrownBy(() -> new CountMinSketch(128, 4).readFrom(input(written)))
+            .isInstanceOf(IOException.class);
+
+        // Sketches from before the 64-bit hash started with the width
+        ByteArrayOutputStream old = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(old);
+        out.writeInt(256);
+        out.writeInt(4);
+        assertThatThrownBy(() -> new CountMinSketch(256, 4).readFrom(input(old.toByteArray())))
+            .isInstanceOf(IOException.class);
+    }
+
+    private static byte[] write(CountMinSketch sketch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+}
@@ -0,0 +1,83 @@
+package cl.tellevo.admin.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class DailyHyperLogLogsTest {
+
+    private static final int PRECISION = 12;
+
+    @Test
+    void mergesOnlyTheRequestedDays() {
+        DailyHyperLogLogs daily = new DailyHyperLogLogs(PRECISION, 7);
+        // Day d gets 100 buyers of its own plus 100 shared by every day
+        for (long day = 100; day < 107; day++) {
+            for (int i = 0; i < 100; i++) {
+                daily.add(day, hash(day * 1000 + i));
+                daily.add(day, hash(-1 - i));
+            }
+        }
+
+        assertThat(estimate(daily, 100, 100)).isCloseTo(200, within(6L));
+        assertThat(estimate(daily, 100, 102)).isCloseTo(400, within(12L));
+        assertThat(estimate(daily, 103, 106)).isCloseTo(500, within(15L));
+        assertThat(estimate(daily, 200, 300)).isZero();
+    }
+
+    @Test
+    void dropsDaysOlderThanTheRetention() {
+        DailyHyperLogLogs daily = new DailyHyperLogLogs(PRECISION, 3);
+        for (int i = 0; i < 50; i++) {
+            daily.add(10, hash(i));
+        }
+        // Day 13 recycles the slot of day 10
+        for (int i = 0; i < 20; i++) {
+            daily.add(13, hash(1000 + i));
+        }
+        // A late venta for day 10 is older than what is retained and ignored
+        daily.add(10, hash(5000));
+
+        assertThat(estimate(daily, 10, 10)).isZero();
+        assertThat(estimate(daily, 13, 13)).isCloseTo(20, within(2L));
+    }
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        DailyHyperLogLogs daily = new DailyHyperLogLogs(PRECISION, 5);
+        for (int i = 0; i < 300; i++) {
+            daily.add(20 + i % 3, hash(i));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        daily.writeTo(new DataOutputStream(bytes));
+
+        DailyHyperLogLogs restored = new DailyHyperLogLogs(PRECISION, 5);
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertThat(estimate(restored, 20, 22)).isEqualTo(estimate(daily, 20, 22));
+
+        assertThatThrownBy(() -> new DailyHyperLogLogs(PRECISION, 6)
+                .readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))))
+            .isInstanceOf(IOException.class);
+    }
+
+    private static long estimate(DailyHyperLogLogs daily, long from, long to) {
+        HyperLogLog merged = new HyperLogLog(PRECISION);
+        daily.mergeInto(merged, from, to);
+        return merged.estimate();
+    }
+
+    private static long hash(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
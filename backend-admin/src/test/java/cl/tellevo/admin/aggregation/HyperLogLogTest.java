@@ -0,0 +1,113 @@
+package cl.tellevo.admin.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertThat(new HyperLogLog(13).estimate()).isZero();
+    }
+
+    @Test
+    void smallCardinalitiesAreNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog(13);
+        for (int n = 1; n <= 200; n++) {
+            sketch.add(hash(n));
+            assertThat(sketch.estimate()).as("n=%d", n).isCloseTo(n, within(2L + n * 3L / 100));
+        }
+    }
+
+    @Test
+    void estimatesStayWithinFourStandardErrors() {
+        for (int precision : new int[] {10, 13, 16, 18}) {
+            HyperLogLog sketch = new HyperLogLog(precision);
+            double error = sketch.getStandardError();
+            long added = 0;
+            for (long n : new long[] {1_000, 10_000, 100_000, 1_000_000}) {
+                for (; added < n; added++) {
+                    sketch.add(hash(added));
+                }
+                assertThat((double) sketch.estimate())
+                    .as("precision %d, n=%d", precision, n)
+                    .isCloseTo(n, within(4 * error * n));
+            }
+        }
+    }
+
+    @Test
+    void repeatedElementsDoNotCount() {
+        HyperLogLog sketch = new HyperLogLog(13);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 5000; i++) {
+                sketch.add(hash(i));
+            }
+        }
+        assertThat((double) sketch.estimate()).isCloseTo(5000, within(4 * sketch.getStandardError() * 5000));
+    }
+
+    @Test
+    void mergeIsTheSketchOfTheUnion() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        // Overlapping ranges [0, 30000) and [20000, 50000)
+        for (int i = 0; i < 30000; i++) {
+            first.add(hash(i));
+            union.add(hash(i));
+        }
+        for (int i = 20000; i < 50000; i++) {
+            second.add(hash(i));
+            union.add(hash(i));
+        }
+
+        first.merge(second);
+        assertThat(first.estimate()).isEqualTo(union.estimate());
+        assertThatThrownBy(() -> first.merge(new HyperLogLog(13)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        HyperLogLog sketch = new HyperLogLog(11);
+        for (int i = 0; i < 12345; i++) {
+            sketch.add(hash(i));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+
+        HyperLogLog restored = new HyperLogLog(11);
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+
+        assertThatThrownBy(() -> new HyperLogLog(12)
+                .readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))))
+            .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsPrecisionOutOfRange() {
+        assertThatThrownBy(() -> new HyperLogLog(3)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HyperLogLog(19)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * SplitMix64 finalizer, standing in for the callers' well-mixed element hash
+     */
+    private static long hash(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,150 @@
+package cl.tellevo.admin.eventlog;
+
+import cl.tellevo.admin.grpc.ventas.VentasResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogSegmentTest {
+
+    private static final int CAPACITY = 4096;
+    private static final int INDEX_INTERVAL = 256;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversEmptyPayloadRecords() throws IOException {
+        LogSegment segment = LogSegment.create(directory, 100, CAPACITY, INDEX_INTERVAL);
+        append(segment, 100, venta(1));
+        // Only default fields: serializes to zero bytes
+        append(segment, 101, VentasResponse.getDefaultInstance());
+        append(segment, 102, venta(3));
+        int end = segment.getWritePosition();
+        segment.close();
+
+        LogSegment reopened = LogSegment.open(directory.resolve(LogSegment.fileName(100)), INDEX_INTERVAL);
+        assertThat(reopened.getNextSequence()).isEqualTo(103);
+        assertThat(reopened.getWritePosition()).isEqualTo(end);
+        assertThat(ids(reopened)).containsExactly(1, 0, 3);
+        reopened.close();
+    }
+
+    @Test
+    void dropsRecordWithBadChecksumAndClearsTail() throws IOException {
+        LogSegment segment = LogSegment.create(directory, 0, CAPACITY, INDEX_INTERVAL);
+        append(segment, 0, venta(1));
+        append(segment, 1, venta(2));
+        int intact = segment.getWritePosition();
+        append(segment, 2, venta(3));
+        Path path = segment.getPath();
+        segment.close();
+
+        // Flip a payload byte of the last record, as a crash mid-append would leave it
+        int lastPayload = intact + LogSegment.HEADER_BYTES;
+        writeBytes(path, lastPayload, new byte[] {(byte) ~readByte(path, lastPayload)});
+
+        LogSegment reopened = LogSegment.open(path, INDEX_INTERVAL);
+        assertThat(reopened.getNextSequence()).isEqualTo(2);
+        assertThat(reopened.getWritePosition()).isEqualTo(intact);
+        assertThat(ids(reopened)).containsExactly(1, 2);
+
+        // The torn record was zeroed, so a new append lands in its place and survives another recovery
+        append(reopened, 2, venta(4));
+        reopened.close();
+        LogSegment again = LogSegment.open(path, INDEX_INTERVAL);
+        assertThat(ids(again)).containsExactly(1, 2, 4);
+        again.close();
+    }
+
+    @Test
+    void stopsAtLengthRunningPastTheSegment() throws IOException {
+        LogSegment segment = LogSegment.create(directory, 0, CAPACITY, INDEX_INTERVAL);
+        append(segment, 0, venta(1));
+        int intact = segment.getWritePosition();
+        Path path = segment.getPath();
+        segment.close();
+
+        // A length word whose record would end beyond the file
+        writeBytes(path, intact, ByteBuffer.allocate(4).putInt(0x80000000 | CAPACITY).array());
+
+        LogSegment reopened = LogSegment.open(path, INDEX_INTERVAL);
+        assertThat(reopened.getNextSequence()).isEqualTo(1);
+        assertThat(reopened.getWritePosition()).isEqualTo(intact);
+        assertThat(readByte(path, intact)).isZero();
+        reopened.close();
+    }
+
+    @Test
+    void readsLengthsWrittenWithoutMarker() throws IOException {
+        LogSegment segment = LogSegment.create(directory, 0, CAPACITY, INDEX_INTERVAL);
+        append(segment, 0, venta(1));
+        int second = segment.getWritePosition();
+        append(segment, 1, venta(2));
+        Path path = segment.getPath();
+        segment.close();
+
+        // Segments from before the marker stored the plain length; the checksum does not cover it
+        int payload = venta(1).getSerializedSize();
+        writeBytes(path, 0, ByteBuffer.allocate(4).putInt(payload).array());
+        writeBytes(path, second, ByteBuffer.allocate(4).putInt(venta(2).getSerializedSize()).array());
+
+        LogSegment reopened = LogSegment.open(path, INDEX_INTERVAL);
+        assertThat(reopened.getNextSequence()).isEqualTo(2);
+        assertThat(ids(reopened)).containsExactly(1, 2);
+        reopened.close();
+    }
+
+    @Test
+    void rejectsFullSegment() throws IOException {
+        int capacity = LogSegment.HEADER_BYTES + venta(1).getSerializedSize() + 1;
+        LogSegment segment = LogSegment.create(directory, 0, capacity, INDEX_INTERVAL);
+        assertThat(segment.append(0, 1L, 1, Long.MIN_VALUE, venta(1))).isTrue();
+        assertThat(segment.append(1, 1L, 2, Long.MIN_VALUE, venta(2))).isFalse();
+        assertThat(segment.getNextSequence()).isEqualTo(1);
+        segment.close();
+    }
+
+    private static VentasResponse venta(int id) {
+        return VentasResponse.newBuilder()
+            .setId(id)
+            .setEmail("cliente" + id + "@example.cl")
+            .setNombreEmpresa("Empresa " + id)
+            .setFechaEnvio("2024-01-01T10:00:00")
+            .build();
+    }
+
+    private static void append(LogSegment segment, long sequence, VentasResponse venta) throws IOException {
+        assertThat(segment.append(sequence, 1_700_000_000_000L + sequence, venta.getId(), Long.MIN_VALUE, venta))
+            .isTrue();
+    }
+
+    private static List<Integer> ids(LogSegment segment) throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        segment.scan(segment.getBaseSequence(), VentasLogQuery.ALL, (sequence, venta) -> ids.add(venta.getId()));
+        return ids;
+    }
+
+    private static byte readByte(Path path, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            return one.get(0);
+        }
+    }
+
+    private static void writeBytes(Path path, int position, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.config.EmpresaListingConfig;
+import cl.tellevo.admin.dto.EmpresaView;
+import cl.tellevo.admin.dto.EmpresasPage;
+import cl.tellevo.admin.repository.EmpresaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmpresaServiceTest {
+
+    @Mock
+    private EmpresaRepository empresaRepository;
+
+    @Spy
+    private EmpresaListingConfig listingConfig = new EmpresaListingConfig();
+
+    @InjectMocks
+    private EmpresaService empresaService;
+
+    @Test
+    void nombreCursorContinuesAfterLastRowEvenWithColons() {
+        when(empresaRepository.findAllByOrderByNombreAscIdAsc(Limit.of(3))).thenReturn(List.of(
+            view(4L, "Alfa"), view(2L, "Béta: filial Ñuble"), view(9L, "Gamma")));
+
+        EmpresasPage first = empresaService.obtenerEmpresasPaginadas("nombre", "asc", 2, null);
+        assertThat(first.getEmpresas()).extracting("id").containsExactly(4L, 2L);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(first.getNextCursor()).isNotNull();
+
+        when(empresaRepository.findPageByNombreAfter("Béta: filial Ñuble", 2L, Limit.of(3)))
+            .thenReturn(List.of(view(9L, "Gamma")));
+        EmpresasPage second = empresaService.obtenerEmpresasPaginadas("nombre", "asc", 2, first.getNextCursor());
+        assertThat(second.getEmpresas()).extracting("id").containsExactly(9L);
+        assertThat(second.isHasMore()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void emptyNombreRoundTrips() {
+        when(empresaRepository.findAllByOrderByNombreDescIdDesc(Limit.of(2))).thenReturn(List.of(
+            view(7L, ""), view(3L, "")));
+
+        EmpresasPage first = empresaService.obtenerEmpresasPaginadas("nombre", "desc", 1, null);
+
+        when(empresaRepository.findPageByNombreBefore("", 7L, Limit.of(2))).thenReturn(List.of(view(3L, "")));
+        EmpresasPage second = empresaService.obtenerEmpresasPaginadas("nombre", "desc", 1, first.getNextCursor());
+        assertThat(second.getEmpresas()).extracting("id").containsExactly(3L);
+    }
+
+    @Test
+    void idCursorContinuesBelowLastIdWhenDescending() {
+        when(empresaRepository.findByIdLessThanOrderByIdDesc(Long.MAX_VALUE, Limit.of(3))).thenReturn(List.of(
+            view(9L, "C"), view(8L, "B"), view(7L, "A")));
+
+        EmpresasPage first = empresaService.obtenerEmpresasPaginadas("id", "desc", 2, null);
+        assertThat(first.getEmpresas()).extracting("id").containsExactly(9L, 8L);
+
+        when(empresaRepository.findByIdLessThanOrderByIdDesc(8L, Limit.of(3))).thenReturn(List.of(view(7L, "A")));
+        EmpresasPage second = empresaService.obtenerEmpresasPaginadas("ID", " DESC ", 2, first.getNextCursor());
+        assertThat(second.getEmpresas()).extracting("id").containsExactly(7L);
+    }
+
+    @Test
+    void cursorOfAnotherListingIsRejected() {
+        when(empresaRepository.findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, Limit.of(2))).thenReturn(List.of(
+            view(1L, "A"), view(2L, "B")));
+        String cursor = empresaService.obtenerEmpresasPaginadas(null, null, 1, null).getNextCursor();
+
+        assertThatThrownBy(() -> empresaService.obtenerEmpresasPaginadas("id", "desc", 1, cursor))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> empresaService.obtenerEmpresasPaginadas("nombre", "asc", 1, cursor))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        for (String cursor : new String[] {
+            "not base64!", encode("v1:id:asc:abc"), encode("v2:id:asc:5"), encode("v1:id:asc"),
+            encode("v1:id:asc:5:extra"), encode("v1:nombre:asc:5")
+        }) {
+            String sort = cursor.equals(encode("v1:nombre:asc:5")) ? "nombre" : "id";
+            assertThatThrownBy(() -> empresaService.obtenerEmpresasPaginadas(sort, "asc", 1, cursor))
+                .as(cursor)
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void limitIsCappedAndValidated() {
+        listingConfig.setMaxLimit(10);
+        when(empresaRepository.findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, Limit.of(11))).thenReturn(List.of());
+
+        assertThat(empresaService.obtenerEmpresasPaginadas("id", "asc", 1000, null).getLimit()).isEqualTo(10);
+        assertThatThrownBy(() -> empresaService.obtenerEmpresasPaginadas("id", "asc", 0, null))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> empresaService.obtenerEmpresasPaginadas("dominio", "asc", 5, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static EmpresaView view(Long id, String nombre) {
+        return new View(id, nombre);
+    }
+
+    private static final class View implements EmpresaView {
+        private final Long id;
+        private final String nombre;
+
+        private View(Long id, String nombre) {
+            this.id = id;
+            this.nombre = nombre;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getNombre() {
+            return nombre;
+        }
+
+        @Override
+        public String getCodigoPais() {
+            return "CL";
+        }
+
+        @Override
+        public String getDominio() {
+            return "@" + id + ".cl";
+        }
+
+        @Override
+        public String getLogoUrl() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package cl.tellevo.admin.service;
+
+import cl.tellevo.admin.config.VentasAggregationConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FechaEnvioParserTest {
+
+    private static final String[] ZONES = {
+        "America/Santiago", "UTC", "Europe/London", "Asia/Kolkata", "Australia/Lord_Howe"
+    };
+
+    @Test
+    void randomDateTimesMatchLocalDateTimeParse() {
+        Random random = new Random(42);
+        long from = LocalDateTime.of(1900, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        long to = LocalDateTime.of(2100, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        for (String zone : ZONES) {
+            FechaEnvioParser parser = parser(zone);
+            for (int i = 0; i < 20000; i++) {
+                LocalDateTime local = LocalDateTime.ofEpochSecond(
+                    from + (long) (random.nextDouble() * (to - from)), 0, ZoneOffset.UTC);
+                String fecha = format(local, random);
+                assertThat(parser.toEpochMillis(fecha)).as("%s in %s", fecha, zone)
+                    .isEqualTo(reference(fecha, zone));
+            }
+        }
+    }
+
+    @Test
+    void everyStepAcrossAYearOfTransitionsMatches() {
+        // Walks through every DST change, including Lord Howe's half-hour one, hitting the per-hour offset cache
+        for (String zone : ZONES) {
+            FechaEnvioParser parser = parser(zone);
+            LocalDateTime local = LocalDateTime.of(2024, 1, 1, 0, 0);
+            LocalDateTime end = LocalDateTime.of(2025, 1, 1, 0, 0);
+            for (; local.isBefore(end); local = local.plusMinutes(7).plusSeconds(13)) {
+                String fecha = local.toString();
+                assertThat(parser.toEpochMillis(fecha)).as("%s in %s", fecha, zone)
+                    .isEqualTo(reference(fecha, zone));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "2024-02-29T12:00", "2023-02-29T12:00", "1900-02-29T00:00", "2000-02-29T00:00",
+        "2024-13-01T00:00", "2024-00-10T00:00", "2024-04-31T00:00", "2024-01-00T00:00",
+        "2024-01-01T24:00", "2024-01-01T23:60", "2024-01-01T10:00:60",
+        "2024-01-01T10:00:00.", "2024-01-01T10:00:00.5", "2024-01-01T10:00:00.05",
+        "2024-01-01T10:00:00.123456789", "2024-01-01T10:00:00.1234567890", "2024-01-01T10:00:00.12a",
+        "2024-01-01 10:00", "2024-01-01 10:00:30.250", "2024-01-01t10:00", "2024-01-01T10:00Z",
+        "2024-01-01T10:00:00+03:00", "2024-1-01T10:00", "2024-01-01T1:00:00", "2024-01-01T10:00:0",
+        "+2024-01-01T10:00", "0000-01-01T00:00", "0001-01-01T00:00", "9999-12-31T23:59:59.999",
+        "abcd-01-01T00:00", "2024-01-01T10:0a", "2024-01-01T-1:00", " 2024-01-01T10:00",
+        "2024-01-01T10:00 ", "2024-01-01", "10:00:00", "not a date"
+    })
+    void edgeCasesMatchLocalDateTimeParse(String fecha) {
+        for (String zone : ZONES) {
+            assertThat(parser(zone).toEpochMillis(fecha)).as("%s in %s", fecha, zone)
+                .isEqualTo(reference(fecha, zone));
+        }
+    }
+
+    @Test
+    void missingFechaIsUnknown() {
+        FechaEnvioParser parser = parser("America/Santiago");
+        assertThat(parser.toEpochMillis(null)).isEqualTo(FechaEnvioParser.UNKNOWN);
+        assertThat(parser.toEpochMillis("")).isEqualTo(FechaEnvioParser.UNKNOWN);
+    }
+
+    private static FechaEnvioParser parser(String zone) {
+        VentasAggregationConfig config = new VentasAggregationConfig();
+        config.setZone(zone);
+        return new FechaEnvioParser(config);
+    }
+
+    private static long reference(String fecha, String zone) {
+        try {
+            return LocalDateTime.parse(fecha.replace(' ', 'T')).atZone(ZoneId.of(zone)).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return FechaEnvioParser.UNKNOWN;
+        }
+    }
+
+    /**
+     * The layouts fecha_envio comes in: T or space, with or without seconds, with 0 to 9 fraction digits
+     */
+    private static String format(LocalDateTime local, Random random) {
+        StringBuilder fecha = new StringBuilder(String.format("%04d-%02d-%02d%c%02d:%02d",
+            local.getYear(), local.getMonthValue(), local.getDayOfMonth(),
+            random.nextBoolean() ? 'T' : ' ', local.getHour(), local.getMinute()));
+        if (random.nextInt(4) > 0) {
+            fecha.append(String.format(":%02d", local.getSecond()));
+            int fractionDigits = random.nextInt(10);
+            if (fractionDigits > 0) {
+                fecha.append('.');
+                for (int d = 0; d < fractionDigits; d++) {
+                    fecha.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+        }
+        return fecha.toString();
+    }
+}
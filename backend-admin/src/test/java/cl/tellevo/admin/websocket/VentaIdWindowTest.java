@@ -0,0 +1,127 @@
+package cl.tellevo.admin.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VentaIdWindowTest {
+
+    private static final int CONTAINER = VentaIdWindow.IDS_PER_CONTAINER;
+
+    @Test
+    void dropsRepeatedIdsInSparseContainer() {
+        VentaIdWindow window = new VentaIdWindow(4 * CONTAINER);
+
+        assertThat(window.add(10)).isTrue();
+        assertThat(window.add(30)).isTrue();
+        // Out of order: inserted by binary search rather than appended
+        assertThat(window.add(20)).isTrue();
+        assertThat(window.add(0)).isTrue();
+
+        assertThat(window.add(10)).isFalse();
+        assertThat(window.add(20)).isFalse();
+        assertThat(window.add(30)).isFalse();
+        assertThat(window.add(0)).isFalse();
+        assertThat(window.add(25)).isTrue();
+
+        assertThat(window.size()).isEqualTo(5);
+        assertThat(window.getDuplicates()).isEqualTo(4);
+    }
+
+    @Test
+    void keepsIdsWhenContainerSwitchesToBitmap() {
+        VentaIdWindow window = new VentaIdWindow(4 * CONTAINER);
+        // Even values only, so the switch happens with gaps left to fill
+        for (int i = 0; i < 4096; i++) {
+            assertThat(window.add(i * 2)).isTrue();
+        }
+
+        // The 4097th value converts the container to a bitmap
+        assertThat(window.add(1)).isTrue();
+
+        for (int i = 0; i < 4096; i++) {
+            assertThat(window.add(i * 2)).as("id %d", i * 2).isFalse();
+        }
+        assertThat(window.add(1)).isFalse();
+        assertThat(window.add(3)).isTrue();
+        assertThat(window.add(CONTAINER - 1)).isTrue();
+        assertThat(window.add(CONTAINER - 1)).isFalse();
+        assertThat(window.size()).isEqualTo(4096 + 3);
+    }
+
+    @Test
+    void containersAreIndependentAcrossKeyBoundaries() {
+        VentaIdWindow window = new VentaIdWindow(4 * CONTAINER);
+
+        assertThat(window.add(CONTAINER - 1)).isTrue();
+        assertThat(window.add(CONTAINER)).isTrue();
+        assertThat(window.add(-1)).isTrue();
+        assertThat(window.add(0)).isTrue();
+
+        assertThat(window.add(CONTAINER - 1)).isFalse();
+        assertThat(window.add(CONTAINER)).isFalse();
+        assertThat(window.add(-1)).isFalse();
+        assertThat(window.add(0)).isFalse();
+    }
+
+    @Test
+    void forgetsIdsThatSlideOutOfTheHorizon() {
+        // Two containers: keys 0 and 1 fit, key 2 recycles the slot of key 0
+        VentaIdWindow window = new VentaIdWindow(2 * CONTAINER);
+        assertThat(window.getHorizonIds()).isEqualTo(2L * CONTAINER);
+
+        assertThat(window.add(5)).isTrue();
+        assertThat(window.add(CONTAINER + 5)).isTrue();
+        assertThat(window.add(2 * CONTAINER + 5)).isTrue();
+
+        // Key 1 is still remembered
+        assertThat(window.add(CONTAINER + 5)).isFalse();
+        // Key 0 was recycled: older than the horizon, so reported as new without evicting key 2
+        assertThat(window.add(5)).isTrue();
+        assertThat(window.getBeyondHorizon()).isEqualTo(1);
+        assertThat(window.add(2 * CONTAINER + 5)).isFalse();
+    }
+
+    @Test
+    void recycledSlotStartsEmptyAfterBitmap() {
+        VentaIdWindow window = new VentaIdWindow(CONTAINER);
+        for (int i = 0; i <= 4096; i++) {
+            window.add(i);
+        }
+
+        // Slides the only container forward; nothing of key 0 may leak into key 1
+        for (int i = 0; i <= 4096; i++) {
+            assertThat(window.add(CONTAINER + i)).as("id %d", CONTAINER + i).isTrue();
+        }
+        assertThat(window.size()).isEqualTo(4097);
+        assertThat(window.getDuplicates()).isZero();
+    }
+
+    @Test
+    void snapshotRoundTripKeepsBothContainerKinds() throws IOException {
+        VentaIdWindow window = new VentaIdWindow(4 * CONTAINER);
+        for (int i = 0; i < 5000; i++) {
+            window.add(i);
+        }
+        window.add(CONTAINER + 7);
+        window.add(CONTAINER + 3);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        window.writeTo(new DataOutputStream(bytes));
+        VentaIdWindow restored = new VentaIdWindow(4 * CONTAINER);
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(restored.size()).isEqualTo(5002);
+        assertThat(restored.add(0)).isFalse();
+        assertThat(restored.add(4999)).isFalse();
+        assertThat(restored.add(5000)).isTrue();
+        assertThat(restored.add(CONTAINER + 3)).isFalse();
+        assertThat(restored.add(CONTAINER + 5)).isTrue();
+    }
+}
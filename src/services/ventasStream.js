@@ -10,15 +10,18 @@ class VentasStreamService {
     this.ws = null
     this.isConnected = false
     this.isConnecting = false
+    this.status = 'disconnected' // connecting, connected, degraded or disconnected
     this.reconnectAttempts = 0
     this.maxReconnectAttempts = 5
     this.reconnectDelay = 1000 // Start with 1 second
+    this.lastVentaId = null // Last venta received, used to resume after reconnecting
 
     // Event listeners
     this.listeners = {
       venta: [],
       status: [],
-      error: []
+      error: [],
+      topEmpresas: []
     }
 
     // Configuration
@@ -153,8 +156,10 @@ class VentasStreamService {
     this.updateStatus('connecting')
 
     try {
-      console.log('[WebSocket Service] Creating new WebSocket connection to:', this.wsUrl)
-      this.ws = new WebSocket(this.wsUrl)
+      // When resuming, skip the default backlog; the resume request fills the gap instead
+      const url = this.lastVentaId !== null ? `${this.wsUrl}?backlog=0` : this.wsUrl
+      console.log('[WebSocket Service] Creating new WebSocket connection to:', url)
+      this.ws = new WebSocket(url)
 
     // Set connection timeout
     const timeoutId = setTimeout(() => {
@@ -207,8 +212,10 @@ class VentasStreamService {
     this.updateStatus('connected')
     this.startHeartbeat()
 
-    // Notify listeners
-    this.notifyListeners('status', 'connected')
+    // Ask the backend for the ventas we missed while disconnected
+    if (this.lastVentaId !== null) {
+      this.ws.send(JSON.stringify({ type: 'resume', lastId: this.lastVentaId }))
+    }
   }
 
   /**
@@ -218,12 +225,35 @@ class VentasStreamService {
     try {
       const data = JSON.parse(event.data)
 
-      // Validate data structure
-      if (this.isValidVentaData(data)) {
-        this.notifyListeners('venta', data)
-      } else {
-        console.warn('Invalid venta data received:', data)
+      // Upstream status: the backend keeps us connected while it reconnects to gRPC
+      if (data && data.type === 'status') {
+        this.updateStatus(data.state === 'degraded' ? 'degraded' : 'connected')
+        return
+      }
+
+      // Periodic top empresas leaderboard
+      if (data && data.type === 'topEmpresas') {
+        this.notifyListeners('topEmpresas', data.leaderboard)
+        return
+      }
+
+      // Other control messages (resume, subscribed, error) are not ventas
+      if (data && typeof data.type === 'string') {
+        return
       }
+
+      // Batched delivery (?batchSize=N&batchMs=T) sends arrays of ventas
+      const ventas = Array.isArray(data) ? data : [data]
+
+      ventas.forEach(venta => {
+        // Validate data structure
+        if (this.isValidVentaData(venta)) {
+          this.lastVentaId = venta.id
+          this.notifyListeners('venta', venta)
+        } else {
+          console.warn('Invalid venta data received:', venta)
+        }
+      })
     } catch (error) {
       console.error('Error parsing WebSocket message:', error, event.data)
     }
@@ -241,7 +271,6 @@ class VentasStreamService {
       this.attemptReconnect()
     } else {
       this.updateStatus('disconnected')
-      this.notifyListeners('status', 'disconnected')
     }
   }
 
@@ -343,11 +372,12 @@ class VentasStreamService {
   }
 
   /**
-   * Update connection status
+   * Update connection status and notify status listeners when it changes
    */
   updateStatus(status) {
-    // Could emit global status updates here if needed
-    console.log('Connection status:', status)
+    if (this.status === status) return
+    this.status = status
+    this.notifyListeners('status', status)
   }
 
   /**
@@ -365,6 +395,10 @@ class VentasStreamService {
     this.listeners.error.push(callback)
   }
 
+  onTopEmpresas(callback) {
+    this.listeners.topEmpresas.push(callback)
+  }
+
   /**
    * Notify all listeners of an event
    */
@@ -442,6 +476,7 @@ class VentasStreamService {
       url: this.wsUrl,
       connected: this.isConnected,
       connecting: this.isConnecting,
+      status: this.status,
       reconnectAttempts: this.reconnectAttempts,
       readyState: this.ws ? this.ws.readyState : -1,
       protocol: this.wsUrl.startsWith('wss:') ? 'wss' : 'ws',